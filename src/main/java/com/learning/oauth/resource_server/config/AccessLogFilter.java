@@ -0,0 +1,174 @@
+package com.learning.oauth.resource_server.config;
+
+import com.learning.oauth.resource_server.logging.MappedAccessLog;
+import com.learning.oauth.resource_server.logging.RequestLoggingProperties;
+import com.learning.oauth.resource_server.security.TokenHash;
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Feeds every request into the binary {@link MappedAccessLog}, when {@code access-log.enabled} is set.
+ * <p>
+ * Runs first, outside Spring Security, so requests rejected with {@code 401}/{@code 403} and probes skipped
+ * by the capture policy are recorded too. The subject is taken from the security context the bearer token
+ * filter stores as a request attribute, which outlives the security filter chain; only a hash of it is
+ * written. Response bytes are counted as they are written; request bytes are the declared content length.
+ * </p>
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+public class AccessLogFilter implements Filter {
+
+    private final MappedAccessLog accessLog;
+    private final boolean enabled;
+
+    public AccessLogFilter(MappedAccessLog accessLog, RequestLoggingProperties properties) {
+        this.accessLog = accessLog;
+        this.enabled = properties.getAccessLog().isEnabled();
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain filterChain)
+            throws IOException, ServletException {
+
+        if (!enabled || !(request instanceof HttpServletRequest httpRequest)
+                || !(response instanceof HttpServletResponse httpResponse)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long timestamp = System.currentTimeMillis();
+        long startTime = System.nanoTime();
+        ByteCountingResponseWrapper countingResponse = new ByteCountingResponseWrapper(httpResponse);
+        boolean completed = false;
+        try {
+            filterChain.doFilter(httpRequest, countingResponse);
+            countingResponse.flushWriter();
+            completed = true;
+        } finally {
+            long latencyMicros = (System.nanoTime() - startTime) / 1000;
+            int status = completed ? httpResponse.getStatus() : HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+            accessLog.record(timestamp, routeOf(httpRequest), status, latencyMicros, subjectHashOf(httpRequest),
+                    httpRequest.getContentLengthLong(), countingResponse.byteCount);
+        }
+    }
+
+    private static String routeOf(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? request.getMethod() + " " + pattern : null;
+    }
+
+    private static long subjectHashOf(HttpServletRequest request) {
+        Object context = request.getAttribute(RequestAttributeSecurityContextRepository.DEFAULT_REQUEST_ATTR_NAME);
+        if (!(context instanceof SecurityContext securityContext)) {
+            return 0;
+        }
+        Authentication authentication = securityContext.getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return 0;
+        }
+        return TokenHash.of(authentication.getName()).high();
+    }
+
+    /**
+     * Counts the response body bytes passing through the output stream or writer.
+     */
+    private static final class ByteCountingResponseWrapper extends HttpServletResponseWrapper {
+
+        private long byteCount;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+
+        private ByteCountingResponseWrapper(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                outputStream = new CountingOutputStream(super.getOutputStream());
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                String encoding = getCharacterEncoding();
+                Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.ISO_8859_1;
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), charset));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            flushWriter();
+            super.flushBuffer();
+        }
+
+        private void flushWriter() {
+            if (writer != null) {
+                writer.flush();
+            }
+        }
+
+        private final class CountingOutputStream extends ServletOutputStream {
+
+            private final ServletOutputStream delegate;
+
+            private CountingOutputStream(ServletOutputStream delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                delegate.write(b);
+                byteCount++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                delegate.write(b, off, len);
+                byteCount += len;
+            }
+
+            @Override
+            public void flush() throws IOException {
+                delegate.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                delegate.close();
+            }
+
+            @Override
+            public boolean isReady() {
+                return delegate.isReady();
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                delegate.setWriteListener(writeListener);
+            }
+        }
+    }
+}
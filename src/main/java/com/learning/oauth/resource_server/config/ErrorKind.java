@@ -0,0 +1,56 @@
+package com.learning.oauth.resource_server.config;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * The errors answered by {@link GlobalExceptionHandler}.
+ * <p>
+ * The title is the {@code error} of an {@code ErrorResponse} and the {@code title} of a problem detail,
+ * so both formats describe an error the same way; the slug identifies its problem {@code type}.
+ * </p>
+ *
+ * @see ProblemTypeRegistry
+ */
+public enum ErrorKind {
+
+    VALIDATION_FAILED(HttpStatus.BAD_REQUEST, "Validation Failed", "validation-failed"),
+    CONSTRAINT_VIOLATION(HttpStatus.BAD_REQUEST, "Validation Error", "constraint-violation"),
+    MISSING_PARAMETER(HttpStatus.BAD_REQUEST, "Missing Parameter", "missing-parameter"),
+    MALFORMED_REQUEST(HttpStatus.BAD_REQUEST, "Malformed JSON Request", "malformed-request"),
+    INVALID_PARAMETER_TYPE(HttpStatus.BAD_REQUEST, "Invalid Parameter Type", "invalid-parameter-type"),
+    METHOD_NOT_ALLOWED(HttpStatus.METHOD_NOT_ALLOWED, "Method Not Allowed", "method-not-allowed"),
+    UNAUTHORIZED(HttpStatus.UNAUTHORIZED, "Unauthorized", "unauthorized"),
+    FORBIDDEN(HttpStatus.FORBIDDEN, "Forbidden", "forbidden"),
+    INTERNAL_ERROR(HttpStatus.INTERNAL_SERVER_ERROR, "Internal Server Error", "internal-error");
+
+    private final HttpStatus status;
+    private final String title;
+    private final String slug;
+
+    ErrorKind(HttpStatus status, String title, String slug) {
+        this.status = status;
+        this.title = title;
+        this.slug = slug;
+    }
+
+    /**
+     * @return the response status
+     */
+    public HttpStatus status() {
+        return status;
+    }
+
+    /**
+     * @return the short, human-readable summary, identical for every occurrence
+     */
+    public String title() {
+        return title;
+    }
+
+    /**
+     * @return the last segment of the problem {@code type} URI
+     */
+    public String slug() {
+        return slug;
+    }
+}
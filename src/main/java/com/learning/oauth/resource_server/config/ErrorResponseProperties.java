@@ -0,0 +1,37 @@
+package com.learning.oauth.resource_server.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Properties of the error response bodies written by {@link GlobalExceptionHandler}, bound from
+ * {@code application.error-response.*}.
+ *
+ * <pre>
+ * application:
+ *   error-response:
+ *     default-format: legacy
+ *     problem-type-base-uri: "urn:resource-server:problem:"
+ * </pre>
+ *
+ * @see ProblemDetailWriter
+ */
+@Data
+@ConfigurationProperties(prefix = "application.error-response")
+public class ErrorResponseProperties {
+
+    /** Format used when the {@code Accept} header does not prefer one. */
+    private Format defaultFormat = Format.LEGACY;
+
+    /** Prefix of every problem {@code type}; the error's slug is appended to it. */
+    private String problemTypeBaseUri = "urn:resource-server:problem:";
+
+    public enum Format {
+
+        /** The {@code ErrorResponse} body, as {@code application/json}. */
+        LEGACY,
+
+        /** An RFC 7807 problem detail, as {@code application/problem+json}. */
+        PROBLEM
+    }
+}
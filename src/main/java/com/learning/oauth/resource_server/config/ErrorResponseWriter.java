@@ -0,0 +1,326 @@
+package com.learning.oauth.resource_server.config;
+
+import com.learning.oauth.resource_server.model.ErrorResponse;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes the {@link ErrorResponse} bodies of the hot {@code 401}/{@code 403} paths from pre-encoded byte templates.
+ * <p>
+ * Under credential stuffing or a misconfigured client, most responses are the same two errors. Instead of
+ * building an {@code ErrorResponse} and serializing it reflectively, each error is serialized once at startup
+ * with the application's own {@link ObjectMapper}, using marker values for the variable fields. The bytes
+ * between the markers become the template; per response only the timestamp, message and path are encoded
+ * into a reused per-thread buffer and written with a {@code Content-Length}. Both the failures raised behind
+ * the filter chain ({@link GlobalExceptionHandler}) and those of the chain itself
+ * ({@link SecurityErrorResponseHandler}) are written here.
+ * </p>
+ * <p>
+ * Because the templates come from the mapper itself, property order, inclusion and naming always match
+ * the regular path. The spliced values are checked against the mapper at startup too (date format and
+ * string escaping, e.g. of {@code /}); if they differ, templates are disabled and {@link #write} returns
+ * {@code false}, as it does for a {@code null} message (omitted under {@code NON_NULL}) or a committed response.
+ * </p>
+ */
+@Slf4j
+@Component
+public class ErrorResponseWriter {
+
+    private static final String MESSAGE_MARKER = "@@message@@";
+    private static final String PATH_MARKER = "@@path@@";
+    private static final LocalDateTime TIMESTAMP_MARKER = LocalDateTime.of(1999, 12, 31, 23, 59, 58, 987_654_321);
+    private static final LocalDateTime[] TIMESTAMP_PROBES = {
+            LocalDateTime.of(2025, 1, 2, 3, 4, 5),
+            LocalDateTime.of(2025, 10, 20, 13, 14, 15, 120_000_000),
+            LocalDateTime.of(2025, 12, 31, 23, 59, 59, 100),
+    };
+    private static final String STRING_PROBE = "q\"b\\s/n\nt\tc\u0001\u001fe\u00e9\u20ac\ud83d\ude00\ud83dx\ude00";
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int TIMESTAMP = 0;
+    private static final int MESSAGE = 1;
+    private static final int PATH = 2;
+
+    private final Template[] templates = new Template[600];
+    private final ThreadLocal<Buffer> buffers = ThreadLocal.withInitial(Buffer::new);
+    private final boolean escapeSlash;
+    private final boolean enabled;
+
+    public ErrorResponseWriter(ObjectMapper objectMapper) {
+        this.escapeSlash = objectMapper.writeValueAsString("/").length() > 3;
+        boolean compatible = isCompatible(objectMapper);
+        if (compatible) {
+            compatible = register(objectMapper, HttpStatus.UNAUTHORIZED, "Unauthorized")
+                    && register(objectMapper, HttpStatus.FORBIDDEN, "Forbidden");
+        }
+        if (!compatible) {
+            log.info("Error response templates disabled: the JSON mapper's output cannot be reproduced");
+        }
+        this.enabled = compatible;
+    }
+
+    /**
+     * Writes an {@link ErrorResponse} body from the status's template.
+     *
+     * @param response  the response, not yet committed
+     * @param status    the error status; only {@code 401} and {@code 403} have templates
+     * @param timestamp the error timestamp
+     * @param message   the error message
+     * @param path      the request path
+     * @return {@code true} if the response was written, {@code false} if the caller must serialize it
+     * @throws IOException if writing the body fails
+     */
+    public boolean write(HttpServletResponse response, HttpStatus status, LocalDateTime timestamp, String message,
+                         String path) throws IOException {
+        Template template = enabled ? templates[status.value()] : null;
+        if (template == null || message == null || path == null || response.isCommitted()) {
+            return false;
+        }
+        Buffer buffer = buffers.get();
+        buffer.length = 0;
+        for (int i = 0; i < template.holes().length; i++) {
+            buffer.append(template.literals()[i]);
+            switch (template.holes()[i]) {
+                case TIMESTAMP -> appendTimestamp(buffer, timestamp);
+                case MESSAGE -> appendString(buffer, message);
+                case PATH -> appendString(buffer, path);
+            }
+        }
+        buffer.append(template.literals()[template.holes().length]);
+
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(buffer.length);
+        response.getOutputStream().write(buffer.bytes, 0, buffer.length);
+        return true;
+    }
+
+    /**
+     * Serializes the error with marker values and cuts the result at the markers.
+     */
+    private boolean register(ObjectMapper objectMapper, HttpStatus status, String error) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(new ErrorResponse(TIMESTAMP_MARKER, status.value(), error,
+                    MESSAGE_MARKER, PATH_MARKER));
+            byte[][] markers = {
+                    objectMapper.writeValueAsBytes(TIMESTAMP_MARKER),
+                    objectMapper.writeValueAsBytes(MESSAGE_MARKER),
+                    objectMapper.writeValueAsBytes(PATH_MARKER),
+            };
+            List<byte[]> literals = new ArrayList<>();
+            List<Integer> holes = new ArrayList<>();
+            int start = 0;
+            while (true) {
+                int next = -1;
+                int hole = -1;
+                for (int i = 0; i < markers.length; i++) {
+                    int index = indexOf(json, markers[i], start);
+                    if (index >= 0 && (next < 0 || index < next)) {
+                        next = index;
+                        hole = i;
+                    }
+                }
+                if (next < 0) {
+                    break;
+                }
+                literals.add(Arrays.copyOfRange(json, start, next));
+                holes.add(hole);
+                start = next + markers[hole].length;
+            }
+            literals.add(Arrays.copyOfRange(json, start, json.length));
+            if (holes.size() != markers.length) {
+                return false;
+            }
+            templates[status.value()] = new Template(literals.toArray(byte[][]::new),
+                    holes.stream().mapToInt(Integer::intValue).toArray());
+            return true;
+        } catch (JacksonException e) {
+            log.warn("Cannot build the error response template for {}: {}", status, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Checks that timestamps and strings encoded here are byte-identical to the mapper's.
+     */
+    private boolean isCompatible(ObjectMapper objectMapper) {
+        Buffer buffer = new Buffer();
+        for (LocalDateTime probe : TIMESTAMP_PROBES) {
+            buffer.length = 0;
+            appendTimestamp(buffer, probe);
+            if (!Arrays.equals(objectMapper.writeValueAsBytes(probe), buffer.toByteArray())) {
+                return false;
+            }
+        }
+        buffer.length = 0;
+        appendString(buffer, STRING_PROBE);
+        return Arrays.equals(objectMapper.writeValueAsBytes(STRING_PROBE), buffer.toByteArray());
+    }
+
+    /**
+     * {@code "yyyy-MM-ddTHH:mm:ss[.fraction]"} as {@code DateTimeFormatter.ISO_LOCAL_DATE_TIME} prints it,
+     * with the fraction only as long as needed.
+     */
+    private static void appendTimestamp(Buffer buffer, LocalDateTime timestamp) {
+        buffer.append((byte) '"');
+        appendDigits(buffer, timestamp.getYear(), 4);
+        buffer.append((byte) '-');
+        appendDigits(buffer, timestamp.getMonthValue(), 2);
+        buffer.append((byte) '-');
+        appendDigits(buffer, timestamp.getDayOfMonth(), 2);
+        buffer.append((byte) 'T');
+        appendDigits(buffer, timestamp.getHour(), 2);
+        buffer.append((byte) ':');
+        appendDigits(buffer, timestamp.getMinute(), 2);
+        buffer.append((byte) ':');
+        appendDigits(buffer, timestamp.getSecond(), 2);
+        int nanos = timestamp.getNano();
+        if (nanos != 0) {
+            int digits = 9;
+            while (nanos % 10 == 0) {
+                nanos /= 10;
+                digits--;
+            }
+            buffer.append((byte) '.');
+            appendDigits(buffer, nanos, digits);
+        }
+        buffer.append((byte) '"');
+    }
+
+    private static void appendDigits(Buffer buffer, int value, int digits) {
+        buffer.ensure(digits);
+        for (int i = buffer.length + digits - 1; i >= buffer.length; i--) {
+            buffer.bytes[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        buffer.length += digits;
+    }
+
+    /**
+     * A JSON string in UTF-8, escaped like Jackson's default generator.
+     */
+    private void appendString(Buffer buffer, String value) {
+        buffer.ensure(value.length() * 3 + 2);
+        buffer.append((byte) '"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                appendAscii(buffer, c);
+            } else if (c < 0x800) {
+                buffer.append((byte) (0xC0 | (c >> 6)));
+                buffer.append((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.append((byte) (0xF0 | (codePoint >> 18)));
+                buffer.append((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.append((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.append((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                appendUnicodeEscape(buffer, c);
+            } else {
+                buffer.append((byte) (0xE0 | (c >> 12)));
+                buffer.append((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.append((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+        buffer.append((byte) '"');
+    }
+
+    private void appendAscii(Buffer buffer, char c) {
+        switch (c) {
+            case '"', '\\' -> buffer.append((byte) '\\', (byte) c);
+            case '/' -> {
+                if (escapeSlash) {
+                    buffer.append((byte) '\\');
+                }
+                buffer.append((byte) '/');
+            }
+            case '\b' -> buffer.append((byte) '\\', (byte) 'b');
+            case '\f' -> buffer.append((byte) '\\', (byte) 'f');
+            case '\n' -> buffer.append((byte) '\\', (byte) 'n');
+            case '\r' -> buffer.append((byte) '\\', (byte) 'r');
+            case '\t' -> buffer.append((byte) '\\', (byte) 't');
+            default -> {
+                if (c < 0x20) {
+                    appendUnicodeEscape(buffer, c);
+                } else {
+                    buffer.append((byte) c);
+                }
+            }
+        }
+    }
+
+    private static void appendUnicodeEscape(Buffer buffer, char c) {
+        buffer.append((byte) '\\', (byte) 'u');
+        buffer.append(HEX[c >> 12], HEX[(c >> 8) & 0xF]);
+        buffer.append(HEX[(c >> 4) & 0xF], HEX[c & 0xF]);
+    }
+
+    private static int indexOf(byte[] array, byte[] target, int from) {
+        outer:
+        for (int i = from; i <= array.length - target.length; i++) {
+            for (int j = 0; j < target.length; j++) {
+                if (array[i + j] != target[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Pre-encoded body: {@code literals[0] hole[0] literals[1] ... hole[n-1] literals[n]}.
+     */
+    private record Template(byte[][] literals, int[] holes) {
+    }
+
+    /**
+     * Growable byte buffer reused by one thread.
+     */
+    private static final class Buffer {
+
+        private byte[] bytes = new byte[512];
+        private int length;
+
+        private void ensure(int additional) {
+            if (length + additional > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + additional));
+            }
+        }
+
+        private void append(byte b) {
+            ensure(1);
+            bytes[length++] = b;
+        }
+
+        private void append(byte first, byte second) {
+            ensure(2);
+            bytes[length++] = first;
+            bytes[length++] = second;
+        }
+
+        private void append(byte[] literal) {
+            ensure(literal.length);
+            System.arraycopy(literal, 0, bytes, length, literal.length);
+            length += literal.length;
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(bytes, length);
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package com.learning.oauth.resource_server.config;
 
+import com.learning.oauth.resource_server.logging.AggregatingExceptionLogger;
+import com.learning.oauth.resource_server.logging.CachedClock;
 import com.learning.oauth.resource_server.model.ErrorResponse;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.security.access.AccessDeniedException;
@@ -19,37 +22,61 @@ import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
-import java.time.LocalDateTime;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+/**
+ * Maps exceptions to error responses, either the legacy {@link ErrorResponse} or an RFC 7807 problem detail
+ * chosen by content negotiation, see {@link ProblemDetailWriter}.
+ * <p>
+ * Both formats are written by {@link #respond}: problem details and the {@code 401}/{@code 403}
+ * {@code ErrorResponse}s are written to the response directly, and a {@code null} return tells Spring MVC the
+ * response has been handled; any other {@code ErrorResponse} is returned for regular serialization.
+ * </p>
+ */
 @ControllerAdvice
 @Slf4j
 public class GlobalExceptionHandler {
 
+    private final ErrorResponseWriter errorResponseWriter;
+    private final ProblemDetailWriter problemDetailWriter;
+    private final AggregatingExceptionLogger exceptionLogger;
+    private final CachedClock clock;
+
+    /**
+     * Handlers only log an occurrence when {@link AggregatingExceptionLogger#record} allows it; repeated
+     * exceptions are summarized periodically and counted in the {@code http.server.exceptions} metric.
+     * Timestamps come from the shared {@link CachedClock}.
+     */
+    public GlobalExceptionHandler(ErrorResponseWriter errorResponseWriter, ProblemDetailWriter problemDetailWriter,
+                                  AggregatingExceptionLogger exceptionLogger, CachedClock clock) {
+        this.errorResponseWriter = errorResponseWriter;
+        this.problemDetailWriter = problemDetailWriter;
+        this.exceptionLogger = exceptionLogger;
+        this.clock = clock;
+    }
+
     /**
      * Handles validation errors for @Valid annotated request bodies.
      */
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponse> handleMethodArgumentNotValid(
-            MethodArgumentNotValidException ex, HttpServletRequest request) {
-        log.warn("Validation error for request body: {}", ex.getMessage());
+            MethodArgumentNotValidException ex, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (exceptionLogger.record("handleMethodArgumentNotValid", ex, request)) {
+            log.warn("Validation error for request body: {}", ex.getMessage());
+        }
         Map<String, String> errors = new HashMap<>();
         ex.getBindingResult().getAllErrors().forEach(error -> {
             String fieldName = ((FieldError) error).getField();
             String errorMessage = error.getDefaultMessage();
             errors.put(fieldName, errorMessage);
         });
-        ErrorResponse errorResponse = new ErrorResponse(
-                LocalDateTime.now(),
-                HttpStatus.BAD_REQUEST.value(),
-                "Validation Failed",
+        return respond(ErrorKind.VALIDATION_FAILED,
                 "Request body validation failed. See details.",
-                request.getRequestURI(),
-                errors
-        );
-        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+                errors, request, response);
     }
 
     /**
@@ -57,22 +84,19 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(ConstraintViolationException.class)
     public ResponseEntity<ErrorResponse> handleConstraintViolation(
-            ConstraintViolationException ex, HttpServletRequest request) {
-        log.warn("Constraint violation error: {}", ex.getMessage());
+            ConstraintViolationException ex, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (exceptionLogger.record("handleConstraintViolation", ex, request)) {
+            log.warn("Constraint violation error: {}", ex.getMessage());
+        }
         Map<String, String> errors = ex.getConstraintViolations().stream()
                 .collect(Collectors.toMap(
                         violation -> violation.getPropertyPath().toString(),
                         ConstraintViolation::getMessage
                 ));
-        ErrorResponse errorResponse = new ErrorResponse(
-                LocalDateTime.now(),
-                HttpStatus.BAD_REQUEST.value(),
-                "Validation Error",
+        return respond(ErrorKind.CONSTRAINT_VIOLATION,
                 "Invalid request parameters or path variables. See details.",
-                request.getRequestURI(),
-                errors
-        );
-        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+                errors, request, response);
     }
 
     /**
@@ -80,18 +104,14 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(MissingServletRequestParameterException.class)
     public ResponseEntity<ErrorResponse> handleMissingServletRequestParameter(
-            MissingServletRequestParameterException ex, HttpServletRequest request) {
-        log.warn("Missing request parameter: {}", ex.getParameterName());
+            MissingServletRequestParameterException ex, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (exceptionLogger.record("handleMissingServletRequestParameter", ex, request)) {
+            log.warn("Missing request parameter: {}", ex.getParameterName());
+        }
         String message = String.format("Required request parameter '%s' of type %s is not present.",
                 ex.getParameterName(), ex.getParameterType());
-        ErrorResponse errorResponse = new ErrorResponse(
-                LocalDateTime.now(),
-                HttpStatus.BAD_REQUEST.value(),
-                "Missing Parameter",
-                message,
-                request.getRequestURI()
-        );
-        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+        return respond(ErrorKind.MISSING_PARAMETER, message, null, request, response);
     }
 
     /**
@@ -99,16 +119,14 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(HttpMessageNotReadableException.class)
     public ResponseEntity<ErrorResponse> handleHttpMessageNotReadable(
-            HttpMessageNotReadableException ex, HttpServletRequest request) {
-        log.warn("Malformed request body: {}", ex.getMessage());
-        ErrorResponse errorResponse = new ErrorResponse(
-                LocalDateTime.now(),
-                HttpStatus.BAD_REQUEST.value(),
-                "Malformed JSON Request",
+            HttpMessageNotReadableException ex, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (exceptionLogger.record("handleHttpMessageNotReadable", ex, request)) {
+            log.warn("Malformed request body: {}", ex.getMessage());
+        }
+        return respond(ErrorKind.MALFORMED_REQUEST,
                 "Request body is malformed or unreadable. Please check the JSON structure and data types.",
-                request.getRequestURI()
-        );
-        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+                null, request, response);
     }
 
     /**
@@ -117,21 +135,17 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(MethodArgumentTypeMismatchException.class)
     public ResponseEntity<ErrorResponse> handleMethodArgumentTypeMismatch(
-            MethodArgumentTypeMismatchException ex, HttpServletRequest request) {
-        log.warn("Type mismatch for parameter '{}': {}", ex.getName(), ex.getMessage());
+            MethodArgumentTypeMismatchException ex, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (exceptionLogger.record("handleMethodArgumentTypeMismatch", ex, request)) {
+            log.warn("Type mismatch for parameter '{}': {}", ex.getName(), ex.getMessage());
+        }
         String message = String.format("Parameter '%s' should be of type '%s' but was '%s'.",
                 ex.getName(),
                 ex.getRequiredType() != null ? ex.getRequiredType().getSimpleName() : "unknown",
                 ex.getValue()
         );
-        ErrorResponse errorResponse = new ErrorResponse(
-                LocalDateTime.now(),
-                HttpStatus.BAD_REQUEST.value(),
-                "Invalid Parameter Type",
-                message,
-                request.getRequestURI()
-        );
-        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+        return respond(ErrorKind.INVALID_PARAMETER_TYPE, message, null, request, response);
     }
 
     /**
@@ -139,20 +153,16 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(HttpRequestMethodNotSupportedException.class)
     public ResponseEntity<ErrorResponse> handleHttpRequestMethodNotSupported(
-            HttpRequestMethodNotSupportedException ex, HttpServletRequest request) {
-        log.warn("HTTP method not supported: {} for path {}", ex.getMethod(), request.getRequestURI());
+            HttpRequestMethodNotSupportedException ex, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (exceptionLogger.record("handleHttpRequestMethodNotSupported", ex, request)) {
+            log.warn("HTTP method not supported: {} for path {}", ex.getMethod(), request.getRequestURI());
+        }
         String message = String.format("Request method '%s' not supported for this endpoint. Supported methods are %s.",
                 ex.getMethod(),
                 ex.getSupportedHttpMethods() != null ? ex.getSupportedHttpMethods().toString() : "N/A"
         );
-        ErrorResponse errorResponse = new ErrorResponse(
-                LocalDateTime.now(),
-                HttpStatus.METHOD_NOT_ALLOWED.value(),
-                "Method Not Allowed",
-                message,
-                request.getRequestURI()
-        );
-        return new ResponseEntity<>(errorResponse, HttpStatus.METHOD_NOT_ALLOWED);
+        return respond(ErrorKind.METHOD_NOT_ALLOWED, message, null, request, response);
     }
 
     /**
@@ -161,29 +171,27 @@ public class GlobalExceptionHandler {
      * Note: Method security can throw AuthorizationDeniedException in Spring Security 6;
      * it typically wraps/extends AccessDeniedException. Handling AccessDeniedException here
      * prevents it from falling into the generic 500 handler.
+     *
+     * A legacy body is written from a pre-encoded template by {@link ErrorResponseWriter}.
      */
     @ExceptionHandler(AccessDeniedException.class)
     public ResponseEntity<ErrorResponse> handleAccessDenied(
-            AccessDeniedException ex, HttpServletRequest request) {
-        log.warn("Access denied for {} {}: {}", request.getMethod(), request.getRequestURI(), ex.getMessage());
-        ErrorResponse errorResponse = new ErrorResponse(
-                LocalDateTime.now(),
-                HttpStatus.FORBIDDEN.value(),
-                "Forbidden",
-                "Access is denied.",
-                request.getRequestURI()
-        );
-        return new ResponseEntity<>(errorResponse, HttpStatus.FORBIDDEN);
+            AccessDeniedException ex, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (exceptionLogger.record("handleAccessDenied", ex, request)) {
+            log.warn("Access denied for {} {}: {}", request.getMethod(), request.getRequestURI(), ex.getMessage());
+        }
+        return respond(ErrorKind.FORBIDDEN, "Access is denied.", null, request, response);
     }
 
     /**
      * Handles authentication failures (missing/invalid/expired token).
+     * Like {@link #handleAccessDenied}, a legacy body is written from a template when possible.
      */
     @ExceptionHandler({OAuth2AuthenticationException.class, AuthenticationException.class})
     public ResponseEntity<ErrorResponse> handleAuthenticationException(
-            Exception ex, HttpServletRequest request) {
-        HttpStatus status = HttpStatus.UNAUTHORIZED;
-
+            Exception ex, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
         String message;
         if (ex instanceof OAuth2AuthenticationException oauth2Ex) {
             message = oauth2Ex.getError() != null && oauth2Ex.getError().getDescription() != null
@@ -195,16 +203,11 @@ public class GlobalExceptionHandler {
             message = "Authentication failed.";
         }
 
-        log.warn("Authentication failure for {} {}: {}", request.getMethod(), request.getRequestURI(), message);
+        if (exceptionLogger.record("handleAuthenticationException", ex, request)) {
+            log.warn("Authentication failure for {} {}: {}", request.getMethod(), request.getRequestURI(), message);
+        }
 
-        ErrorResponse errorResponse = new ErrorResponse(
-                LocalDateTime.now(),
-                status.value(),
-                "Unauthorized",
-                message,
-                request.getRequestURI()
-        );
-        return new ResponseEntity<>(errorResponse, status);
+        return respond(ErrorKind.UNAUTHORIZED, message, null, request, response);
     }
 
     /**
@@ -213,16 +216,51 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGenericException(
-            Exception ex, HttpServletRequest request) {
-        log.error("An unexpected error occurred: {}", ex.getMessage(), ex); // Log the full stack trace for unexpected errors
-        ErrorResponse errorResponse = new ErrorResponse(
-                LocalDateTime.now(),
-                HttpStatus.INTERNAL_SERVER_ERROR.value(),
-                "Internal Server Error",
+            Exception ex, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (exceptionLogger.record("handleGenericException", ex, request)) {
+            log.error("An unexpected error occurred: {}", ex.getMessage(), ex); // Log the full stack trace for unexpected errors
+        }
+        return respond(ErrorKind.INTERNAL_ERROR,
                 "An unexpected error occurred. Please try again later.",
-                request.getRequestURI()
+                null, request, response);
+    }
+
+    /**
+     * Writes or returns the error in the negotiated format.
+     * <p>
+     * Responses carry {@code Vary: Accept}, since their format depends on it. A problem detail is written by
+     * the {@link ProblemDetailWriter}, a {@code 401}/{@code 403} {@code ErrorResponse} from its template;
+     * both return {@code null}. Otherwise the {@code ErrorResponse} is returned for Spring MVC to serialize.
+     * </p>
+     *
+     * @param kind             the error, giving status and title
+     * @param message          the error message
+     * @param validationErrors field errors, or {@code null}
+     */
+    private ResponseEntity<ErrorResponse> respond(ErrorKind kind, String message, Map<String, String> validationErrors,
+                                                  HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        CachedClock.Now now = clock.now();
+        String path = request.getRequestURI();
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (problemDetailWriter.isPreferred(request)
+                && problemDetailWriter.write(response, kind, now.iso(), message, path, validationErrors)) {
+            return null;
+        }
+        if (validationErrors == null
+                && errorResponseWriter.write(response, kind.status(), now.dateTime(), message, path)) {
+            return null;
+        }
+        ErrorResponse errorResponse = new ErrorResponse(
+                now.dateTime(),
+                kind.status().value(),
+                kind.title(),
+                message,
+                path,
+                validationErrors
         );
-        return new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
+        return new ResponseEntity<>(errorResponse, kind.status());
     }
 
 }
\ No newline at end of file
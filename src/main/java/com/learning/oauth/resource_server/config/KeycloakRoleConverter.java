@@ -1,21 +1,32 @@
 package com.learning.oauth.resource_server.config;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import com.learning.oauth.resource_server.security.AuthorityRegistry;
+import com.learning.oauth.resource_server.security.RoleBitIndex;
+import com.learning.oauth.resource_server.security.RoleBitset;
+import com.learning.oauth.resource_server.security.RoleHierarchyClosure;
+import com.learning.oauth.resource_server.security.RoleSetAuthorityCache;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.jwt.Jwt;
 
 /**
- * Converter that extracts Keycloak realm roles from JWT tokens and converts them to Spring Security authorities.
+ * Converter that extracts Keycloak realm and client roles from JWT tokens and converts them to Spring Security authorities.
  * <p>
- * This converter extracts roles from the {@code realm_access.roles} claim in the JWT token
- * and converts them to {@link GrantedAuthority} instances with the {@code ROLE_} prefix.
+ * This converter extracts roles from the {@code realm_access.roles} claim in the JWT token and, for each
+ * configured client, from {@code resource_access.<client>.roles}, and converts them to
+ * {@link GrantedAuthority} instances with the {@code ROLE_} prefix. Client roles are namespaced with their
+ * client id, so a client cannot grant itself a realm role by defining a client role of the same name.
+ * Duplicate roles are mapped once.
  * </p>
  *
  * <h3>JWT Structure Example:</h3>
@@ -23,6 +34,11 @@ import org.springframework.security.oauth2.jwt.Jwt;
  * {
  *   "realm_access": {
  *     "roles": ["admin", "user"]
+ *   },
+ *   "resource_access": {
+ *     "resource-server": {
+ *       "roles": ["auditor"]
+ *     }
  *   }
  * }
  * </pre>
@@ -31,23 +47,83 @@ import org.springframework.security.oauth2.jwt.Jwt;
  * <ul>
  *     <li>{@code ROLE_admin}</li>
  *     <li>{@code ROLE_user}</li>
+ *     <li>{@code ROLE_resource-server:auditor} (when {@code resource-server} is a configured client)</li>
  * </ul>
  *
+ * <h3>Composite Roles:</h3>
+ * <p>
+ * When a {@link RoleHierarchyClosure} is configured, every role is expanded with the roles it implies;
+ * client roles appear in the hierarchy under their namespaced name, e.g. {@code resource-server:auditor}.
+ * As a map key, such a name must be bracketed, or Spring Boot's binder drops the {@code :}:
+ * </p>
+ * <pre>
+ * hierarchy:
+ *   "[resource-server:auditor]": [resource-server:viewer]
+ * </pre>
+ * <p>
+ * The closure is precomputed, so expansion never walks the hierarchy at request time.
+ * </p>
+ *
+ * <h3>Performance:</h3>
+ * <p>
+ * Authorities are looked up in an {@link AuthorityRegistry} instead of being created per call, and the
+ * namespaced names of client roles are remembered per client, so the conversion performs no string
+ * concatenation and allocates only the role and result lists. When a
+ * {@link RoleSetAuthorityCache} is configured, tokens carrying the same role list share a single
+ * immutable authority collection and even that list is not rebuilt.
+ * </p>
+ * <p>
+ * When a {@link RoleBitIndex} is configured, a {@link RoleBitset} encoding all known roles of the token
+ * is placed first in the returned collection, enabling constant-time role checks.
+ * </p>
+ *
  * @see Converter
+ * @see AuthorityRegistry
  * @see GrantedAuthority
  * @see Jwt
  */
 public class KeycloakRoleConverter implements Converter<Jwt, Collection<GrantedAuthority>> {
 
     private static final String REALM_ACCESS_CLAIM = "realm_access";
+    private static final String RESOURCE_ACCESS_CLAIM = "resource_access";
     private static final String ROLES_CLAIM = "roles";
-    private static final String ROLE_PREFIX = "ROLE_";
+    private static final char CLIENT_ROLE_SEPARATOR = ':';
+    /** Bound on the remembered role names per client, protecting against unbounded role names. */
+    private static final int MAXIMUM_CLIENT_ROLES = 1024;
+
+    private final AuthorityRegistry authorityRegistry;
+    private final RoleSetAuthorityCache roleSetCache;
+    private final RoleBitIndex roleBitIndex;
+    private final RoleHierarchyClosure roleHierarchy;
+    private final List<ClientRoles> clients;
+
+    public KeycloakRoleConverter(AuthorityRegistry authorityRegistry) {
+        this(authorityRegistry, null, null, null, Collections.emptyList());
+    }
 
     /**
-     * Converts JWT token to a collection of granted authorities based on Keycloak realm roles.
+     * @param authorityRegistry registry of canonical role authorities
+     * @param roleSetCache      memoization of whole role lists, or {@code null} to build the list per call
+     * @param roleBitIndex      bit index of known roles, or {@code null} to omit the {@link RoleBitset}
+     * @param roleHierarchy     precomputed composite-role closure, or {@code null} for no expansion
+     * @param clientIds         clients whose {@code resource_access} roles are mapped as well
+     */
+    public KeycloakRoleConverter(AuthorityRegistry authorityRegistry, RoleSetAuthorityCache roleSetCache,
+                                 RoleBitIndex roleBitIndex, RoleHierarchyClosure roleHierarchy,
+                                 List<String> clientIds) {
+        this.authorityRegistry = authorityRegistry;
+        this.roleSetCache = roleSetCache;
+        this.roleBitIndex = roleBitIndex;
+        this.roleHierarchy = roleHierarchy;
+        this.clients = clientIds.stream().map(ClientRoles::new).toList();
+    }
+
+    /**
+     * Converts JWT token to a collection of granted authorities based on Keycloak realm and client roles.
      * <p>
-     * This method extracts roles from the {@code realm_access.roles} claim and prefixes each role
-     * with {@code ROLE_} to create Spring Security authorities.
+     * This method extracts roles from the {@code realm_access.roles} and configured
+     * {@code resource_access.<client>.roles} claims, expands composite roles and maps each role
+     * to its canonical {@code ROLE_}-prefixed authority from the {@link AuthorityRegistry}.
      * </p>
      *
      * @param jwt the JWT token containing the realm_access claim (must not be null)
@@ -55,24 +131,109 @@ public class KeycloakRoleConverter implements Converter<Jwt, Collection<GrantedA
      */
     @Override
     public Collection<GrantedAuthority> convert(Jwt jwt) {
-        Map<String, Object> realmAccess = jwt.getClaimAsMap(REALM_ACCESS_CLAIM);
-
-        if (realmAccess == null || realmAccess.isEmpty()) {
+        List<?> roles = extractRoles(jwt);
+        if (roles.isEmpty()) {
             return Collections.emptyList();
         }
+        if (roleSetCache != null) {
+            return roleSetCache.authoritiesFor(roles, this::toAuthorities);
+        }
+        return toAuthorities(roles);
+    }
 
-        Object rolesObject = realmAccess.get(ROLES_CLAIM);
-        if (!(rolesObject instanceof List)) {
+    /**
+     * Returns the realm roles as-is when no client contributes roles, so the common case allocates nothing.
+     * Client roles are added as {@code <client>:<role>}.
+     */
+    private List<?> extractRoles(Jwt jwt) {
+        List<?> realmRoles = rolesOf(jwt.getClaimAsMap(REALM_ACCESS_CLAIM));
+        if (clients.isEmpty()) {
+            return realmRoles;
+        }
+        Map<String, Object> resourceAccess = jwt.getClaimAsMap(RESOURCE_ACCESS_CLAIM);
+        if (resourceAccess == null || resourceAccess.isEmpty()) {
+            return realmRoles;
+        }
+
+        List<Object> combined = null;
+        for (int i = 0; i < clients.size(); i++) {
+            ClientRoles client = clients.get(i);
+            if (resourceAccess.get(client.clientId()) instanceof Map<?, ?> clientAccess) {
+                List<?> clientRoles = rolesOf(clientAccess);
+                for (int j = 0; j < clientRoles.size(); j++) {
+                    if (clientRoles.get(j) instanceof String role && !role.isBlank()) {
+                        if (combined == null) {
+                            combined = new ArrayList<>(realmRoles);
+                        }
+                        combined.add(client.namespaced(role));
+                    }
+                }
+            }
+        }
+        return combined != null ? combined : realmRoles;
+    }
+
+    private static List<?> rolesOf(Map<?, ?> access) {
+        if (access == null || access.isEmpty()) {
             return Collections.emptyList();
         }
+        return access.get(ROLES_CLAIM) instanceof List<?> roles ? roles : Collections.emptyList();
+    }
+
+    private List<GrantedAuthority> toAuthorities(List<?> roles) {
+        Set<String> roleNames = roleNames(roles);
+        List<GrantedAuthority> authorities = new ArrayList<>(roleNames.size() + 1);
+        long roleBits = 0;
+        for (String role : roleNames) {
+            authorities.add(authorityRegistry.authorityFor(role));
+            if (roleBitIndex != null) {
+                roleBits |= roleBitIndex.bitOf(role);
+            }
+        }
+        if (roleBitIndex != null) {
+            // First, so RoleBitsetAuthorizationManagers finds it without scanning the role authorities.
+            authorities.add(0, new RoleBitset(roleBits));
+        }
+        return authorities;
+    }
 
-        @SuppressWarnings("unchecked")
-        List<String> roles = (List<String>) rolesObject;
+    /**
+     * Collects the non-blank roles and, with a role hierarchy, the roles each implies, preserving first-seen
+     * order and dropping duplicates.
+     */
+    private Set<String> roleNames(List<?> roles) {
+        boolean expand = roleHierarchy != null && !roleHierarchy.isEmpty();
+        Set<String> roleNames = new LinkedHashSet<>();
+        for (int i = 0; i < roles.size(); i++) {
+            if (roles.get(i) instanceof String role && !role.isBlank()) {
+                roleNames.add(role);
+                if (expand) {
+                    roleNames.addAll(roleHierarchy.impliedBy(role));
+                }
+            }
+        }
+        return roleNames;
+    }
 
-        return roles.stream()
-                .filter(role -> role != null && !role.trim().isEmpty())
-                .map(roleName -> ROLE_PREFIX + roleName)
-                .map(SimpleGrantedAuthority::new)
-                .collect(Collectors.toList());
+    /**
+     * The namespaced {@code <client>:<role>} names of one client's roles, each built once.
+     */
+    private record ClientRoles(String clientId, ConcurrentMap<String, String> names) {
+
+        private ClientRoles(String clientId) {
+            this(clientId, new ConcurrentHashMap<>());
+        }
+
+        private String namespaced(String role) {
+            String name = names.get(role);
+            if (name != null) {
+                return name;
+            }
+            name = clientId + CLIENT_ROLE_SEPARATOR + role;
+            if (names.size() < MAXIMUM_CLIENT_ROLES) {
+                names.putIfAbsent(role, name);
+            }
+            return name;
+        }
     }
-}
\ No newline at end of file
+}
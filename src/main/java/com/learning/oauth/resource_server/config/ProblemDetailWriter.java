@@ -0,0 +1,158 @@
+package com.learning.oauth.resource_server.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.ObjectWriteContext;
+import tools.jackson.core.SerializableString;
+import tools.jackson.core.io.SerializedString;
+import tools.jackson.core.json.JsonFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Writes RFC 7807 problem details ({@code application/problem+json}) for {@link GlobalExceptionHandler}.
+ * <p>
+ * The body is produced with Jackson's streaming {@link JsonGenerator}: no {@code ProblemDetail} object is
+ * built and no {@code ObjectMapper} is involved. Property names are pre-encoded constants, {@code type} and
+ * {@code title} come pre-encoded from the {@link ProblemTypeRegistry}, and the JSON is written into a reused
+ * per-thread buffer so it can be sent with a {@code Content-Length}.
+ * </p>
+ *
+ * <pre>
+ * {"type":"urn:resource-server:problem:forbidden","title":"Forbidden","status":403,
+ *  "detail":"Access is denied.","instance":"/oauth/users/status","timestamp":"2025-01-01T12:00:00.123"}
+ * </pre>
+ * <p>
+ * Validation errors are added as an {@code errors} object of field name to message.
+ * </p>
+ *
+ * <h3>Content negotiation:</h3>
+ * <p>
+ * A client listing only {@code application/problem+json} in {@code Accept} gets a problem detail, one listing
+ * only {@code application/json} the legacy {@code ErrorResponse}. If both are listed, the higher quality wins;
+ * otherwise, including a missing header or {@code *}{@code /*}, {@code default-format} decides.
+ * </p>
+ *
+ * @see ErrorResponseProperties
+ */
+@Component
+public class ProblemDetailWriter {
+
+    static final String PROBLEM_JSON = MediaType.APPLICATION_PROBLEM_JSON_VALUE;
+    static final String JSON = MediaType.APPLICATION_JSON_VALUE;
+
+    private static final SerializableString TYPE = new SerializedString("type");
+    private static final SerializableString TITLE = new SerializedString("title");
+    private static final SerializableString STATUS = new SerializedString("status");
+    private static final SerializableString DETAIL = new SerializedString("detail");
+    private static final SerializableString INSTANCE = new SerializedString("instance");
+    private static final SerializableString TIMESTAMP = new SerializedString("timestamp");
+    private static final SerializableString ERRORS = new SerializedString("errors");
+
+    private final ProblemTypeRegistry registry;
+    private final boolean problemByDefault;
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final ThreadLocal<ByteArrayOutputStream> buffers =
+            ThreadLocal.withInitial(() -> new ByteArrayOutputStream(512));
+
+    public ProblemDetailWriter(ProblemTypeRegistry registry, ErrorResponseProperties properties) {
+        this.registry = registry;
+        this.problemByDefault = properties.getDefaultFormat() == ErrorResponseProperties.Format.PROBLEM;
+    }
+
+    /**
+     * @param request the failed request
+     * @return {@code true} if the client should get a problem detail rather than an {@code ErrorResponse}
+     */
+    public boolean isPreferred(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null) {
+            return problemByDefault;
+        }
+        boolean problem = accept.contains(PROBLEM_JSON);
+        boolean json = accept.contains(JSON);
+        if (problem != json) {
+            return problem;
+        }
+        if (!problem) {
+            return problemByDefault;
+        }
+        double problemQuality = 0;
+        double jsonQuality = 0;
+        try {
+            for (MediaType mediaType : MediaType.parseMediaTypes(accept)) {
+                if (MediaType.APPLICATION_PROBLEM_JSON.equalsTypeAndSubtype(mediaType)) {
+                    problemQuality = Math.max(problemQuality, mediaType.getQualityValue());
+                } else if (MediaType.APPLICATION_JSON.equalsTypeAndSubtype(mediaType)) {
+                    jsonQuality = Math.max(jsonQuality, mediaType.getQualityValue());
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            return problemByDefault;
+        }
+        return problemQuality == jsonQuality ? problemByDefault : problemQuality > jsonQuality;
+    }
+
+    /**
+     * Writes a problem detail.
+     *
+     * @param response         the response, not yet committed
+     * @param kind             the error, giving status, type and title
+     * @param timestamp        the error timestamp as an ISO-8601 local date-time, the {@code timestamp} extension
+     * @param detail           the occurrence-specific explanation, omitted if {@code null}
+     * @param instance         the request path
+     * @param validationErrors field errors, written as the {@code errors} extension unless {@code null}
+     * @return {@code true} if the response was written, {@code false} if it was already committed
+     * @throws IOException if writing the body fails
+     */
+    public boolean write(HttpServletResponse response, ErrorKind kind, String timestamp, String detail,
+                         String instance, Map<String, String> validationErrors) throws IOException {
+        if (response.isCommitted()) {
+            return false;
+        }
+        ProblemTypeRegistry.ProblemType problemType = registry.get(kind);
+        ByteArrayOutputStream buffer = buffers.get();
+        buffer.reset();
+        try (JsonGenerator generator = jsonFactory.createGenerator(ObjectWriteContext.empty(), buffer)) {
+            generator.writeStartObject();
+            generator.writeName(TYPE);
+            generator.writeString(problemType.jsonType());
+            generator.writeName(TITLE);
+            generator.writeString(problemType.jsonTitle());
+            generator.writeName(STATUS);
+            generator.writeNumber(kind.status().value());
+            if (detail != null) {
+                generator.writeName(DETAIL);
+                generator.writeString(detail);
+            }
+            if (instance != null) {
+                generator.writeName(INSTANCE);
+                generator.writeString(instance);
+            }
+            generator.writeName(TIMESTAMP);
+            generator.writeString(timestamp);
+            if (validationErrors != null) {
+                generator.writeName(ERRORS);
+                generator.writeStartObject();
+                for (Map.Entry<String, String> error : validationErrors.entrySet()) {
+                    generator.writeStringProperty(error.getKey(), error.getValue());
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
+        }
+
+        response.setStatus(kind.status().value());
+        response.setContentType(PROBLEM_JSON);
+        response.setContentLength(buffer.size());
+        buffer.writeTo(response.getOutputStream());
+        return true;
+    }
+}
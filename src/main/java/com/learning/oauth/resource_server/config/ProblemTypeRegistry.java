@@ -0,0 +1,50 @@
+package com.learning.oauth.resource_server.config;
+
+import org.springframework.stereotype.Component;
+import tools.jackson.core.SerializableString;
+import tools.jackson.core.io.SerializedString;
+
+import java.net.URI;
+
+/**
+ * The problem {@code type} and {@code title} of every {@link ErrorKind}, resolved once at startup.
+ * <p>
+ * Types are {@code problem-type-base-uri} followed by the kind's slug. Besides the {@link URI}, each entry
+ * keeps its type and title as {@link SerializedString}s, whose quoted and UTF-8 encoded forms are computed
+ * on first use and then copied by the generator as they are.
+ * </p>
+ *
+ * @see ErrorResponseProperties#getProblemTypeBaseUri()
+ */
+@Component
+public class ProblemTypeRegistry {
+
+    private final ProblemType[] types = new ProblemType[ErrorKind.values().length];
+
+    public ProblemTypeRegistry(ErrorResponseProperties properties) {
+        for (ErrorKind kind : ErrorKind.values()) {
+            URI type = URI.create(properties.getProblemTypeBaseUri() + kind.slug());
+            types[kind.ordinal()] = new ProblemType(kind, type, new SerializedString(type.toString()),
+                    new SerializedString(kind.title()));
+        }
+    }
+
+    /**
+     * @param kind the error
+     * @return its problem type
+     */
+    public ProblemType get(ErrorKind kind) {
+        return types[kind.ordinal()];
+    }
+
+    /**
+     * A registered problem type.
+     *
+     * @param kind      the error
+     * @param type      the {@code type} URI
+     * @param jsonType  the {@code type}, ready to be written
+     * @param jsonTitle the {@code title}, ready to be written
+     */
+    public record ProblemType(ErrorKind kind, URI type, SerializableString jsonType, SerializableString jsonTitle) {
+    }
+}
@@ -0,0 +1,152 @@
+package com.learning.oauth.resource_server.config;
+
+import com.learning.oauth.resource_server.logging.AggregatingExceptionLogger;
+import com.learning.oauth.resource_server.logging.AsyncExchangeLogSink;
+import com.learning.oauth.resource_server.logging.CachedClock;
+import com.learning.oauth.resource_server.logging.CapturePolicy;
+import com.learning.oauth.resource_server.logging.ClockProperties;
+import com.learning.oauth.resource_server.logging.ExceptionLoggingProperties;
+import com.learning.oauth.resource_server.logging.ExchangeLogSink;
+import com.learning.oauth.resource_server.logging.HeaderPolicy;
+import com.learning.oauth.resource_server.logging.JsonExchangeLogSink;
+import com.learning.oauth.resource_server.logging.LogSampler;
+import com.learning.oauth.resource_server.logging.MappedAccessLog;
+import com.learning.oauth.resource_server.logging.PhaseTimers;
+import com.learning.oauth.resource_server.logging.RequestIds;
+import com.learning.oauth.resource_server.logging.RequestLoggingProperties;
+import com.learning.oauth.resource_server.logging.TextExchangeLogSink;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Output pipeline of the {@link RequestResponseLoggingFilter}.
+ * <p>
+ * The filter only captures an {@link com.learning.oauth.resource_server.logging.ExchangeLogEvent} per
+ * exchange; how and where it is written is decided here, driven by {@code application.request-logging.*}.
+ * </p>
+ */
+@Configuration
+public class RequestLoggingConfig {
+
+    /**
+     * Creates the sink the filter publishes to.
+     * <p>
+     * Exchanges are written as boxed text or, with {@code format: json}, as one structured JSON event each.
+     * Both keep the filter's logger name, so existing logback configuration applies.
+     * With {@code async.enabled}, the formatter is wrapped in an {@link AsyncExchangeLogSink} whose consumer thread
+     * is started and stopped with the application context.
+     * </p>
+     *
+     * @param properties    request logging properties
+     * @param meterRegistry registry for the async pipeline's drop counters
+     * @return the exchange log sink
+     */
+    @Bean
+    public ExchangeLogSink exchangeLogSink(RequestLoggingProperties properties, MeterRegistry meterRegistry) {
+        Logger log = LoggerFactory.getLogger(RequestResponseLoggingFilter.class);
+        ExchangeLogSink formatter = switch (properties.getFormat()) {
+            case TEXT -> new TextExchangeLogSink(log);
+            case JSON -> new JsonExchangeLogSink(log);
+        };
+        if (!properties.getAsync().isEnabled()) {
+            return formatter;
+        }
+        return new AsyncExchangeLogSink(formatter, properties.getAsync(), meterRegistry);
+    }
+
+    /**
+     * Head and tail sampling of logged exchanges, from {@code application.request-logging.sampling}.
+     *
+     * @param properties request logging properties
+     * @return the sampler consulted by the filter before any body is captured
+     */
+    @Bean
+    public LogSampler logSampler(RequestLoggingProperties properties) {
+        return new LogSampler(properties.getSampling());
+    }
+
+    /**
+     * Request/trace ID resolution, from {@code application.request-logging.request-id}.
+     *
+     * @param properties request logging properties
+     * @return the request ID resolver
+     */
+    @Bean
+    public RequestIds requestIds(RequestLoggingProperties properties) {
+        return new RequestIds(properties.getRequestId());
+    }
+
+    /**
+     * Per-route, per-phase latency timers fed by {@link PhaseTimingFilter}.
+     *
+     * @param meterRegistry registry the timers are registered with
+     * @return the phase timers
+     */
+    @Bean
+    public PhaseTimers phaseTimers(MeterRegistry meterRegistry) {
+        return new PhaseTimers(meterRegistry);
+    }
+
+    /**
+     * Route- and content-type-based capture rules, from {@code application.request-logging.capture}.
+     *
+     * @param properties request logging properties
+     * @return the capture policy, compiled once at startup
+     */
+    @Bean
+    public CapturePolicy capturePolicy(RequestLoggingProperties properties) {
+        return new CapturePolicy(properties.getCapture());
+    }
+
+    /**
+     * Header allowlist, redaction and JWT masking, from {@code application.request-logging.headers}.
+     *
+     * @param properties request logging properties
+     * @return the header policy, with its perfect hash table built once at startup
+     */
+    @Bean
+    public HeaderPolicy headerPolicy(RequestLoggingProperties properties) {
+        return new HeaderPolicy(properties.getHeaders());
+    }
+
+    /**
+     * Binary audit log fed by {@link AccessLogFilter}, from {@code application.request-logging.access-log}.
+     * Its segments are only opened when enabled.
+     *
+     * @param properties    request logging properties
+     * @param meterRegistry registry for the counter of dropped records
+     * @return the memory-mapped access log, started and stopped with the application context
+     */
+    @Bean
+    public MappedAccessLog mappedAccessLog(RequestLoggingProperties properties, MeterRegistry meterRegistry) {
+        return new MappedAccessLog(properties.getAccessLog(), meterRegistry);
+    }
+
+    /**
+     * Rate-limited logging of the exceptions handled by {@link GlobalExceptionHandler},
+     * from {@code application.exception-logging}.
+     *
+     * @param properties    exception logging properties
+     * @param meterRegistry registry for the per-key occurrence counters
+     * @return the exception logger, whose summary thread is started and stopped with the application context
+     */
+    @Bean
+    public AggregatingExceptionLogger aggregatingExceptionLogger(ExceptionLoggingProperties properties,
+                                                                 MeterRegistry meterRegistry) {
+        return new AggregatingExceptionLogger(properties, meterRegistry);
+    }
+
+    /**
+     * Cached "now" for log events and error responses, from {@code application.clock}.
+     *
+     * @param properties clock properties
+     * @return the clock, whose tick thread is started and stopped with the application context
+     */
+    @Bean
+    public CachedClock cachedClock(ClockProperties properties) {
+        return new CachedClock(properties);
+    }
+}
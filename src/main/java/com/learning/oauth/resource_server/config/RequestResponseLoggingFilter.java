@@ -1,37 +1,65 @@
 package com.learning.oauth.resource_server.config;
 
 
+import com.learning.oauth.resource_server.logging.CachedClock;
+import com.learning.oauth.resource_server.logging.CaptureMode;
+import com.learning.oauth.resource_server.logging.CapturePolicy;
+import com.learning.oauth.resource_server.logging.ExchangeLogEvent;
+import com.learning.oauth.resource_server.logging.ExchangeLogSink;
+import com.learning.oauth.resource_server.logging.HeaderPolicy;
+import com.learning.oauth.resource_server.logging.LogSampler;
+import com.learning.oauth.resource_server.logging.PhaseTimings;
+import com.learning.oauth.resource_server.logging.RequestIds;
+import com.learning.oauth.resource_server.logging.RequestPhase;
+import com.learning.oauth.resource_server.logging.RequestLoggingProperties;
+import com.learning.oauth.resource_server.logging.TeeRequestWrapper;
+import com.learning.oauth.resource_server.logging.TeeResponseWrapper;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
-import org.springframework.web.util.ContentCachingRequestWrapper;
-import org.springframework.web.util.ContentCachingResponseWrapper;
-import tools.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
-import java.nio.charset.StandardCharsets;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Enumeration;
-import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.List;
 
 @Component
 @Order(1) // Ensure it runs early
 public class RequestResponseLoggingFilter implements Filter {
 
-    private static final Logger log = LoggerFactory.getLogger(RequestResponseLoggingFilter.class);
-    private static final int MAX_PAYLOAD_LENGTH = 10000; // Max characters of payload to log
-    private final ObjectMapper objectMapper;
-
-    public RequestResponseLoggingFilter() {
-        this.objectMapper = new ObjectMapper();
+    private static final int MAX_PAYLOAD_LENGTH = 10000; // Max bytes of payload to log
+    private static final byte[] NO_BODY = new byte[0];
+    private final ExchangeLogSink sink;
+    private final LogSampler sampler;
+    private final CapturePolicy capturePolicy;
+    private final HeaderPolicy headerPolicy;
+    private final RequestIds requestIds;
+    private final CachedClock clock;
+    private final String mdcKey;
+
+    /**
+     * @param sink    receives one immutable {@link ExchangeLogEvent} per logged exchange; see {@link RequestLoggingConfig}
+     * @param sampler decides which exchanges are captured
+     * @param capturePolicy decides per route and content type what is captured; {@code SKIP} bypasses the filter
+     * @param headerPolicy allowlists and redacts logged header values
+     * @param requestIds resolves the ID returned in the response header and put into the MDC
+     * @param clock provides the pre-formatted timestamp of each event
+     * @param properties request logging properties
+     */
+    public RequestResponseLoggingFilter(ExchangeLogSink sink, LogSampler sampler, RequestIds requestIds,
+                                        CapturePolicy capturePolicy, HeaderPolicy headerPolicy, CachedClock clock,
+                                        RequestLoggingProperties properties) {
+        this.sink = sink;
+        this.headerPolicy = headerPolicy;
+        this.sampler = sampler;
+        this.capturePolicy = capturePolicy;
+        this.requestIds = requestIds;
+        this.clock = clock;
+        this.mdcKey = properties.getRequestId().getMdcKey();
     }
 
     @Override
@@ -43,130 +71,108 @@ public class RequestResponseLoggingFilter implements Filter {
             return;
         }
 
-        String logId = UUID.randomUUID().toString().substring(0, 8);
-
-        ContentCachingRequestWrapper requestWrapper = new ContentCachingRequestWrapper(httpRequest,0);
-        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(httpResponse);
-
-        long startTime = System.currentTimeMillis();
+        CaptureMode mode = capturePolicy.resolve(httpRequest);
+        if (mode == CaptureMode.SKIP) {
+            filterChain.doFilter(request, response);
+            return;
+        }
 
+        String logId = requestIds.resolve(httpRequest);
+        httpResponse.setHeader(requestIds.getHeader(), logId);
+        MDC.put(mdcKey, logId);
         try {
-            filterChain.doFilter(requestWrapper, responseWrapper);
+            boolean sampled = sampler.sampleHead(httpRequest);
+            if (sampled && mode == CaptureMode.BODY) {
+                doFilterWithBodies(httpRequest, httpResponse, filterChain, logId);
+            } else {
+                doFilterWithoutBodies(httpRequest, httpResponse, filterChain, logId, sampled);
+            }
         } finally {
-            long timeTaken = System.currentTimeMillis() - startTime;
-            logRequest(requestWrapper, timeTaken, logId);
-            logResponse(responseWrapper, logId);
-            responseWrapper.copyBodyToResponse();
+            MDC.remove(mdcKey);
         }
     }
 
-    private void logRequest(ContentCachingRequestWrapper request, long timeTaken, String logId) {
-        StringBuilder msg = new StringBuilder();
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+    private void doFilterWithBodies(HttpServletRequest httpRequest, HttpServletResponse httpResponse,
+                                    FilterChain filterChain, String logId) throws IOException, ServletException {
+        TeeRequestWrapper requestWrapper = new TeeRequestWrapper(httpRequest, MAX_PAYLOAD_LENGTH);
+        TeeResponseWrapper responseWrapper = new TeeResponseWrapper(httpResponse, MAX_PAYLOAD_LENGTH,
+                capturePolicy::isBodyCaptured);
 
-        msg.append("\n╔═══════════════════════════ REQUEST START (ID: ").append(logId).append(") ═══════════════════════════╗\n");
-        msg.append(String.format("║ %-18s: %s\n", "Timestamp", timestamp));
-        msg.append(String.format("║ %-18s: %s\n", "Method", request.getMethod()));
-        msg.append(String.format("║ %-18s: %s\n", "URI", request.getRequestURI()));
-        if (request.getQueryString() != null) {
-            msg.append(String.format("║ %-18s: %s\n", "QueryString", request.getQueryString()));
-        }
-        msg.append(String.format("║ %-18s: %s\n", "Client IP", request.getRemoteAddr()));
-
-        msg.append("║ Headers           :\n");
-        Enumeration<String> headerNames = request.getHeaderNames();
-        if (!headerNames.hasMoreElements()) {
-            msg.append("║                     [NONE]\n");
-        } else {
-            while (headerNames.hasMoreElements()) {
-                String headerName = headerNames.nextElement();
-                msg.append(String.format("║   %-15s: %s\n", headerName, request.getHeader(headerName)));
-            }
-        }
-
-        byte[] content = request.getContentAsByteArray();
-        if (content.length > 0) {
-            String contentString = getContentString(content, request.getCharacterEncoding());
-            msg.append("║ Body              :\n").append(indentMultiLine(formatPayload(contentString), "║   ")).append("\n");
-        } else {
-            msg.append(String.format("║ %-18s: %s\n", "Body", "[EMPTY]"));
-        }
-        msg.append(String.format("║ %-18s: %d ms\n", "Processing Time", timeTaken));
-        msg.append("╚════════════════════════════ REQUEST END (ID: ").append(logId).append(") ═════════════════════════════╝"); // No newline at the very end
-        log.info(msg.toString());
-    }
+        long startTime = System.currentTimeMillis();
 
-    private void logResponse(ContentCachingResponseWrapper response, String logId) {
-        StringBuilder msg = new StringBuilder();
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-
-        msg.append("\n╔═══════════════════════════ RESPONSE START (ID: ").append(logId).append(") ══════════════════════════╗\n");
-        msg.append(String.format("║ %-18s: %s\n", "Timestamp", timestamp));
-        msg.append(String.format("║ %-18s: %d\n", "Status", response.getStatus()));
-
-        msg.append("║ Headers           :\n");
-        Collection<String> headerNames = response.getHeaderNames();
-        if (headerNames.isEmpty()) {
-            msg.append("║                     [NONE]\n");
-        } else {
-            for (String headerName : headerNames) {
-                msg.append(String.format("║   %-15s: %s\n", headerName, response.getHeader(headerName)));
+        try {
+            filterChain.doFilter(requestWrapper, responseWrapper);
+        } finally {
+            long timeTaken = System.currentTimeMillis() - startTime;
+            responseWrapper.flushCapture();
+            if (!isSkippedContentType(responseWrapper)) {
+                long logStart = System.nanoTime();
+                byte[] requestBody = requestWrapper.getCapturedBody();
+                sink.accept(capture(requestWrapper, responseWrapper, timeTaken, logId,
+                        requestBody, Math.max(requestBody.length, requestWrapper.getCapturedLength()),
+                        responseWrapper.getCapturedBody(), responseWrapper.getCapturedLength()));
+                PhaseTimings.record(RequestPhase.LOG_FORMATTING, logStart);
             }
         }
-
-        byte[] content = response.getContentAsByteArray();
-        if (content.length > 0) {
-            String contentString = getContentString(content, response.getCharacterEncoding());
-            msg.append("║ Body              :\n").append(indentMultiLine(formatPayload(contentString), "║   ")).append("\n");
-        } else {
-            msg.append(String.format("║ %-18s: %s\n", "Body", "[EMPTY]"));
-        }
-        msg.append("╚═══════════════════════════ RESPONSE END (ID: ").append(logId).append(") ══════════════════════════╝"); // No newline at the very end
-        log.info(msg.toString());
     }
 
-    private String getContentString(byte[] content, String characterEncoding) {
-        if (content == null || content.length == 0) {
-            return "";
+    /**
+     * Exchanges captured without bodies are not wrapped: head-sampled {@code HEADERS} exchanges are always
+     * logged; unsampled ones only with tail sampling, if they fail or are slow.
+     */
+    private void doFilterWithoutBodies(HttpServletRequest request, HttpServletResponse response,
+                                       FilterChain filterChain, String logId, boolean sampled)
+            throws IOException, ServletException {
+        if (!sampled && !sampler.isTailEnabled()) {
+            filterChain.doFilter(request, response);
+            return;
         }
+        long startTime = System.currentTimeMillis();
         try {
-            return new String(content, characterEncoding != null ? characterEncoding : StandardCharsets.UTF_8.name());
-        } catch (UnsupportedEncodingException e) {
-            log.warn("Failed to parse payload with encoding '{}', falling back to UTF-8: {}", characterEncoding, e.getMessage());
-            return new String(content, StandardCharsets.UTF_8);
+            filterChain.doFilter(request, response);
+        } finally {
+            long timeTaken = System.currentTimeMillis() - startTime;
+            if ((sampled || sampler.keepTail(response.getStatus(), timeTaken)) && !isSkippedContentType(response)) {
+                long logStart = System.nanoTime();
+                sink.accept(capture(request, response, timeTaken, logId, NO_BODY, 0, NO_BODY, 0));
+                PhaseTimings.record(RequestPhase.LOG_FORMATTING, logStart);
+            }
         }
     }
 
-    private String formatPayload(String payload) {
-        if (payload == null || payload.isEmpty()) {
-            return "[EMPTY BODY]";
-        }
-        String trimmedPayload = payload.trim();
-        if (trimmedPayload.startsWith("{") || trimmedPayload.startsWith("[")) {
-            try {
-                Object json = objectMapper.readValue(payload, Object.class);
-                return objectMapper.writeValueAsString(json); // Already pretty-printed by ObjectMapper config
-            } catch (Exception e) {
-                log.warn("Attempted to pretty print JSON but failed (payload might not be valid JSON or too complex). Error: {}. Logging as is (truncated).", e.getMessage());
-                // Fall through to truncate if not valid JSON
-            }
-        }
-        return truncatePayload(payload);
+    private boolean isSkippedContentType(HttpServletResponse response) {
+        return capturePolicy.forContentType(response.getContentType()) == CaptureMode.SKIP;
     }
 
-    private String truncatePayload(String payload) {
-        if (payload.length() > MAX_PAYLOAD_LENGTH) {
-            return payload.substring(0, MAX_PAYLOAD_LENGTH) + "... [TRUNCATED]";
+    private ExchangeLogEvent capture(HttpServletRequest request, HttpServletResponse response,
+                                     long timeTaken, String logId,
+                                     byte[] requestBody, long requestBodyLength,
+                                     byte[] responseBody, long responseBodyLength) {
+        List<ExchangeLogEvent.Header> requestHeaders = new ArrayList<>();
+        Enumeration<String> headerNames = request.getHeaderNames();
+        while (headerNames.hasMoreElements()) {
+            String headerName = headerNames.nextElement();
+            addHeader(requestHeaders, headerName, request.getHeader(headerName));
+        }
+        Collection<String> responseHeaderNames = response.getHeaderNames();
+        List<ExchangeLogEvent.Header> responseHeaders = new ArrayList<>(responseHeaderNames.size());
+        for (String headerName : responseHeaderNames) {
+            addHeader(responseHeaders, headerName, response.getHeader(headerName));
         }
-        return payload;
+        return new ExchangeLogEvent(logId, clock.now().iso(),
+                request.getMethod(), request.getRequestURI(), request.getQueryString(), request.getRemoteAddr(),
+                requestHeaders, requestBody, requestBodyLength, request.getCharacterEncoding(),
+                timeTaken, response.getStatus(),
+                responseHeaders, responseBody, responseBodyLength, response.getCharacterEncoding());
     }
 
-    private String indentMultiLine(String text, String indentPrefix) {
-        if (text == null || text.isEmpty() || text.equals("[EMPTY BODY]")) {
-            return indentPrefix + text; // Avoid adding prefix to an already prefixed [EMPTY BODY]
+    /**
+     * Only sanitized values enter the event, so secrets never reach the log pipeline.
+     */
+    private void addHeader(List<ExchangeLogEvent.Header> headers, String name, String value) {
+        String sanitized = headerPolicy.sanitize(name, value);
+        if (sanitized != null) {
+            headers.add(new ExchangeLogEvent.Header(name, sanitized));
         }
-        return text.lines()
-                .map(line -> indentPrefix + line)
-                .collect(Collectors.joining("\n"));
     }
-}
\ No newline at end of file
+}
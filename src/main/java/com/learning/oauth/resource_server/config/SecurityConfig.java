@@ -1,15 +1,63 @@
 package com.learning.oauth.resource_server.config;
 
+import com.learning.oauth.resource_server.logging.PhaseTimings;
+import com.learning.oauth.resource_server.logging.RequestPhase;
+import com.learning.oauth.resource_server.security.AuthorityProperties;
+import com.learning.oauth.resource_server.security.AuthorityRegistry;
+import com.learning.oauth.resource_server.security.AuthorizationDecisionCache;
+import com.learning.oauth.resource_server.security.CachingJwtDecoder;
+import com.learning.oauth.resource_server.security.CompilingMethodSecurityExpressionHandler;
+import com.learning.oauth.resource_server.security.DecisionCacheProperties;
+import com.learning.oauth.resource_server.security.JwksKeyStore;
+import com.learning.oauth.resource_server.security.JwtBearerAuthenticationProvider;
+import com.learning.oauth.resource_server.security.JwtDecoderProperties;
+import com.learning.oauth.resource_server.security.RoleBitIndex;
+import com.learning.oauth.resource_server.security.RoleBitsetAuthorizationManagers;
+import com.learning.oauth.resource_server.security.RoleHierarchyClosure;
+import com.learning.oauth.resource_server.security.RoleSetAuthorityCache;
+import com.learning.oauth.resource_server.security.RouteTree;
+import com.learning.oauth.resource_server.security.SecurityFailureProperties;
+import com.learning.oauth.resource_server.security.SecurityFailures;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.Advisor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionHandler;
+import org.springframework.security.access.hierarchicalroles.RoleHierarchy;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authorization.AuthenticatedAuthorizationManager;
+import org.springframework.security.authorization.AuthoritiesAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationEventPublisher;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.SpringAuthorizationEventPublisher;
+import org.springframework.security.authorization.method.AuthorizationManagerBeforeMethodInterceptor;
+import org.springframework.security.authorization.method.SecuredAuthorizationManager;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.util.function.SingletonSupplier;
+
+import java.util.Collection;
 
 /**
  * Security configuration for the OAuth2 Resource Server.
@@ -26,7 +74,10 @@ import org.springframework.security.web.SecurityFilterChain;
  *     <li>Integrates custom {@link KeycloakRoleConverter} to extract roles from Keycloak JWT tokens</li>
  *     <li>Supports both scope-based and role-based authorization</li>
  *     <li>Spring Security inspects and validates access tokens to verify required authorities</li>
- *     <li>Enables method-level security with {@code @PreAuthorize} and {@code @PostAuthorize}</li>
+ *     <li>Enables method-level security with {@code @PreAuthorize} and {@code @PostAuthorize}, whose
+ *         expressions are compiled once by {@link CompilingMethodSecurityExpressionHandler}</li>
+ *     <li>Answers {@code hasRole(...)} and {@code @Secured} checks with a single bitwise AND via
+ *         {@link RoleBitsetAuthorizationManagers}</li>
  * </ul>
  *
  * <h3>Request Matchers and Authorization:</h3>
@@ -140,19 +191,213 @@ import org.springframework.security.web.SecurityFilterChain;
  */
 @Configuration
 @EnableWebSecurity
-@EnableMethodSecurity(securedEnabled = true, prePostEnabled = true)
+@EnableMethodSecurity(prePostEnabled = true)
 public class SecurityConfig {
 
+    private static final AuthorizationDecision PERMIT = new AuthorizationDecision(true);
+    private static final String LOGGERS_ENDPOINT = "/actuator/loggers/**";
+
+    /**
+     * {@code @Secured} support backed by {@link RoleBitsetAuthorizationManagers}.
+     * <p>
+     * Registered instead of {@code @EnableMethodSecurity(securedEnabled = true)}, which would install
+     * the default name-scanning {@link SecuredAuthorizationManager}. Denials are raised through
+     * {@link SecurityFailures}. The collaborators are resolved lazily because method-security infrastructure
+     * is created before regular beans.
+     * </p>
+     * <p>
+     * As with the default configuration, a {@link RoleHierarchy} bean applies to {@code @Secured}: its
+     * reachable authorities are unknown to the bitsets, so the checks then go through Spring's
+     * {@link AuthoritiesAuthorizationManager}, whose outcomes are cached per secured method when the
+     * {@link AuthorizationDecisionCache} is enabled; a bitset check is cheaper than the cache lookup and is
+     * never cached. Authorization events go to the
+     * {@link AuthorizationEventPublisher} bean, or else to the application context.
+     * </p>
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor securedAuthorizationMethodInterceptor(ObjectProvider<RoleBitsetAuthorizationManagers> roleBitsets,
+                                                         ObjectProvider<AuthorizationDecisionCache> decisionCache,
+                                                         ObjectProvider<SecurityFailures> securityFailures,
+                                                         ObjectProvider<RoleHierarchy> roleHierarchy,
+                                                         ObjectProvider<AuthorizationEventPublisher> eventPublisher,
+                                                         ApplicationContext applicationContext) {
+        SingletonSupplier<AuthorizationManager<Collection<String>>> authoritiesManager = SingletonSupplier.of(() -> {
+            RoleHierarchy hierarchy = roleHierarchy.getIfAvailable();
+            if (hierarchy == null) {
+                return roleBitsets.getObject().securedAuthorities();
+            }
+            AuthoritiesAuthorizationManager manager = new AuthoritiesAuthorizationManager();
+            manager.setRoleHierarchy(hierarchy);
+            return manager;
+        });
+        SecuredAuthorizationManager securedAuthorizationManager = new SecuredAuthorizationManager();
+        securedAuthorizationManager.setAuthoritiesAuthorizationManager(
+                (authentication, authorities) -> authoritiesManager.obtain().authorize(authentication, authorities));
+        AuthorizationEventPublisher publisher =
+                eventPublisher.getIfAvailable(() -> new SpringAuthorizationEventPublisher(applicationContext));
+        SingletonSupplier<AuthorizationManager<MethodInvocation>> methodManager = SingletonSupplier.of(() -> {
+            AuthorizationManager<MethodInvocation> manager = securedAuthorizationManager;
+            if (roleHierarchy.getIfAvailable() != null) {
+                manager = decisionCache.getObject().cached(manager, MethodInvocation::getMethod);
+            }
+            return securityFailures.getObject().throwingOnDenial(manager, publisher);
+        });
+        AuthorizationManagerBeforeMethodInterceptor interceptor = AuthorizationManagerBeforeMethodInterceptor.secured(
+                (authentication, invocation) -> methodManager.obtain().authorize(authentication, invocation));
+        interceptor.setAuthorizationEventPublisher(publisher);
+        return interceptor;
+    }
+
+    /**
+     * Expression handler for {@code @PreAuthorize} / {@code @PostAuthorize} that compiles each expression
+     * with the SpEL compiler, records its evaluation time and, for authority-only expressions, consults the
+     * {@link AuthorizationDecisionCache}.
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static MethodSecurityExpressionHandler methodSecurityExpressionHandler(ObjectProvider<MeterRegistry> meterRegistry,
+                                                                           ObjectProvider<AuthorizationDecisionCache> decisionCache,
+                                                                           ApplicationContext applicationContext) {
+        CompilingMethodSecurityExpressionHandler handler =
+                CompilingMethodSecurityExpressionHandler.create(meterRegistry, decisionCache);
+        handler.setApplicationContext(applicationContext);
+        return handler;
+    }
+
+    /**
+     * Opt-in cache of authorization outcomes keyed by authority-set fingerprint and route
+     * ({@code application.security.decision-cache.enabled}).
+     */
+    @Bean
+    public AuthorizationDecisionCache authorizationDecisionCache(DecisionCacheProperties properties,
+                                                                 MeterRegistry meterRegistry) {
+        return new AuthorizationDecisionCache(properties, meterRegistry);
+    }
+
+    /**
+     * Exceptions for expected failures (rejected tokens, denied authorizations), stackless when
+     * {@code application.security.failures.stackless} is {@code true}.
+     */
+    @Bean
+    public SecurityFailures securityFailures(SecurityFailureProperties properties) {
+        return new SecurityFailures(properties);
+    }
+
+    /**
+     * Fixed bit index of the known roles, used to encode a token's roles as a {@code RoleBitset}.
+     */
+    @Bean
+    public RoleBitIndex roleBitIndex(AuthorityProperties properties) {
+        return new RoleBitIndex(properties.getKnownRoles());
+    }
+
+    /**
+     * Factory for role checks that are answered with a single bitwise AND.
+     */
+    @Bean
+    public RoleBitsetAuthorizationManagers roleBitsetAuthorizationManagers(RoleBitIndex roleBitIndex) {
+        return new RoleBitsetAuthorizationManagers(roleBitIndex);
+    }
+
+    /**
+     * Registry of canonical, interned role authorities shared by all token conversions.
+     */
+    @Bean
+    public AuthorityRegistry authorityRegistry(AuthorityProperties properties) {
+        return new AuthorityRegistry(properties);
+    }
+
+    /**
+     * Transitive closure of {@code application.security.authorities.hierarchy}, computed once at startup.
+     */
+    @Bean
+    public RoleHierarchyClosure roleHierarchyClosure(AuthorityProperties properties) {
+        return new RoleHierarchyClosure(properties.getHierarchy());
+    }
+
     /**
-     * Converter that maps Keycloak realm roles from JWT into Spring Security authorities.
+     * Converter that maps Keycloak realm and client roles from JWT into Spring Security authorities.
+     * <p>
+     * Identical role lists share one authority collection unless
+     * {@code application.security.authorities.role-set-cache.enabled} is {@code false}, and known roles are
+     * encoded as a {@code RoleBitset} unless {@code application.security.authorities.bitset-enabled} is
+     * {@code false}.
+     * </p>
      */
     @Bean
-    public JwtAuthenticationConverter jwtAuthenticationConverter() {
+    public JwtAuthenticationConverter jwtAuthenticationConverter(AuthorityRegistry authorityRegistry,
+                                                                 RoleBitIndex roleBitIndex,
+                                                                 RoleHierarchyClosure roleHierarchyClosure,
+                                                                 AuthorityProperties properties,
+                                                                 MeterRegistry meterRegistry) {
+        RoleSetAuthorityCache roleSetCache = null;
+        if (properties.getRoleSetCache().isEnabled()) {
+            roleSetCache = new RoleSetAuthorityCache(properties.getRoleSetCache(), meterRegistry);
+        }
+        KeycloakRoleConverter roleConverter = new KeycloakRoleConverter(authorityRegistry, roleSetCache,
+                properties.isBitsetEnabled() ? roleBitIndex : null, roleHierarchyClosure, properties.getClientIds());
         JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
-        converter.setJwtGrantedAuthoritiesConverter(new KeycloakRoleConverter());
+        converter.setJwtGrantedAuthoritiesConverter(jwt -> {
+            long start = System.nanoTime();
+            try {
+                return roleConverter.convert(jwt);
+            } finally {
+                PhaseTimings.record(RequestPhase.AUTHORITIES, start);
+            }
+        });
         return converter;
     }
 
+    /**
+     * Key store that keeps the Keycloak JWK set fresh on a background thread.
+     * <p>
+     * Unknown-{@code kid} refetches are coalesced and rate-limited, and the last good key set keeps
+     * being served while Keycloak is slow or unavailable.
+     * </p>
+     */
+    @Bean
+    public JwksKeyStore jwksKeyStore(@Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}") String jwkSetUri,
+                                     JwtDecoderProperties properties) {
+        return new JwksKeyStore(jwkSetUri, properties.getJwks());
+    }
+
+    /**
+     * Decoder that validates bearer tokens against the keys held by {@link JwksKeyStore}.
+     * <p>
+     * Claim validation is left to Spring's default {@code JwtValidators}, exactly like
+     * {@code NimbusJwtDecoder.withJwkSetUri(...)}. Unless both caches are disabled, the decoder is wrapped
+     * in a {@link CachingJwtDecoder} so that a token reused across calls is only parsed and
+     * signature-verified once during its lifetime, and a recently rejected token is refused without
+     * any crypto work.
+     * </p>
+     * <p>
+     * Each decode is recorded as the {@code jwt} phase of the current request, see {@link PhaseTimings}.
+     * </p>
+     */
+    @Bean
+    public JwtDecoder jwtDecoder(JwksKeyStore jwksKeyStore,
+                                 JwtDecoderProperties properties,
+                                 SecurityFailures securityFailures,
+                                 MeterRegistry meterRegistry) {
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, jwksKeyStore));
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+        JwtDecoder nimbusDecoder = new NimbusJwtDecoder(jwtProcessor);
+        JwtDecoder decoder = properties.getCache().isEnabled() || properties.getRejectedCache().isEnabled()
+                ? new CachingJwtDecoder(nimbusDecoder, properties, securityFailures, meterRegistry)
+                : nimbusDecoder;
+        return token -> {
+            long start = System.nanoTime();
+            try {
+                return decoder.decode(token);
+            } finally {
+                PhaseTimings.record(RequestPhase.JWT_DECODE, start);
+            }
+        };
+    }
+
     /**
      * Configures the security filter chain for HTTP requests.
      * <p>
@@ -174,8 +419,16 @@ public class SecurityConfig {
      * <ul>
      *     <li><b>GET /users/status:</b> Requires {@code developer} role (ROLE_developer authority)</li>
      *     <li><b>/admin/performance/**:</b> Publicly accessible (permitAll)</li>
+     *     <li><b>/actuator/loggers/**:</b> Requires {@code developer} role for any method, as it reads and changes
+     *         log levels; matched by a {@link PathPatternRequestMatcher} ahead of the route tree, and by the
+     *         route tree itself. The endpoint is only exposed under the {@code prod} profile</li>
+     *     <li><b>/actuator/**:</b> Publicly accessible (permitAll)</li>
      *     <li><b>All other requests:</b> Must be authenticated with valid JWT token</li>
      * </ul>
+     * <p>
+     * The rules are compiled into a {@link RouteTree} (see {@link #authorizationRules}), so finding the
+     * rule for a request does not grow with the number of rules.
+     * </p>
      *
      * <h3>JWT Authentication Flow:</h3>
      * <ol>
@@ -213,30 +466,86 @@ public class SecurityConfig {
      * </pre>
      *
      * @param http the {@link HttpSecurity} to configure
+     * @param jwtDecoder the decoder used to validate bearer tokens
+     * @param jwtAuthenticationConverter the converter that maps JWT claims to authorities
+     * @param roleBitsets factory for bitset-based role checks
+     * @param securityFailures raises rejected tokens and denied requests as (optionally stackless) exceptions
+     * @param securityErrorResponseHandler writes the bodies of {@code 401}/{@code 403} responses of the chain
      * @return the configured {@link SecurityFilterChain}
      * @throws RuntimeException if security configuration fails
      */
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http,
-                                                   JwtAuthenticationConverter jwtAuthenticationConverter) {
+                                                   JwtDecoder jwtDecoder,
+                                                   JwtAuthenticationConverter jwtAuthenticationConverter,
+                                                   RoleBitsetAuthorizationManagers roleBitsets,
+                                                   SecurityFailures securityFailures,
+                                                   SecurityErrorResponseHandler securityErrorResponseHandler) {
         http
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(authorize -> authorize
-                        //.hasAnyAuthority("SCOPE_profile")
-                        .requestMatchers(HttpMethod.GET, "/users/status")
-                        .hasRole("developer")
-                        .requestMatchers("/admin/performance/**")
-                        .permitAll()
-                        .requestMatchers("/actuator/**")
-                        .permitAll()
+                        .requestMatchers(PathPatternRequestMatcher.withDefaults().matcher(LOGGERS_ENDPOINT))
+                        .access(timed(securityFailures.throwingOnDenial(roleBitsets.hasRole("developer"))))
                         .anyRequest()
-                        .authenticated()
+                        .access(timed(securityFailures.throwingOnDenial(RouteTree.authorizationManager(
+                                authorizationRules(roleBitsets),
+                                AuthenticatedAuthorizationManager.authenticated()))))
                 )
+                .exceptionHandling(exceptions -> exceptions
+                        .authenticationEntryPoint(securityErrorResponseHandler)
+                        .accessDeniedHandler(securityErrorResponseHandler))
                 .oauth2ResourceServer(oauth2 -> oauth2
-                        .jwt(jwt -> jwt.jwtAuthenticationConverter(jwtAuthenticationConverter))
+                        .authenticationEntryPoint(securityErrorResponseHandler)
+                        .accessDeniedHandler(securityErrorResponseHandler)
+                        .jwt(jwt -> jwt
+                                .authenticationManager(new ProviderManager(new JwtBearerAuthenticationProvider(
+                                        jwtDecoder, jwtAuthenticationConverter, securityFailures))))
                 );
 
         return http.build();
     }
+
+    /**
+     * The {@code (method, pattern)} authorization rules, in first-match order, compiled into a {@link RouteTree}.
+     * <p>
+     * Equivalent to the classic {@code requestMatchers(...)} chain:
+     * </p>
+     * <pre>
+     * .requestMatchers(HttpMethod.GET, "/users/status").hasRole("developer")
+     * .requestMatchers("/admin/performance/**").permitAll()
+     * .requestMatchers("/actuator/loggers/**").hasRole("developer")
+     * .requestMatchers("/actuator/**").permitAll()
+     * .anyRequest().authenticated()
+     * </pre>
+     * <p>
+     * but the matching rule is found by walking the path segments instead of testing every matcher in turn.
+     * </p>
+     */
+    private static RouteTree<AuthorizationManager<RequestAuthorizationContext>> authorizationRules(
+            RoleBitsetAuthorizationManagers roleBitsets) {
+        AuthorizationManager<RequestAuthorizationContext> permitAll = (authentication, context) -> PERMIT;
+        return RouteTree.<AuthorizationManager<RequestAuthorizationContext>>builder()
+                //.hasAnyAuthority("SCOPE_profile")
+                .route(HttpMethod.GET, "/users/status", roleBitsets.hasRole("developer"))
+                .route(null, "/admin/performance/**", permitAll)
+                .route(null, LOGGERS_ENDPOINT, roleBitsets.hasRole("developer"))
+                .route(null, "/actuator/**", permitAll)
+                .build();
+    }
+
+    /**
+     * Records the time spent in request authorization as the {@link RequestPhase#AUTHORIZATION} phase.
+     */
+    private static AuthorizationManager<RequestAuthorizationContext> timed(
+            AuthorizationManager<RequestAuthorizationContext> delegate) {
+        return (authentication, context) -> {
+            long start = System.nanoTime();
+            try {
+                return delegate.authorize(authentication, context);
+            } finally {
+                PhaseTimings.record(RequestPhase.AUTHORIZATION, start);
+            }
+        };
+    }
 }
@@ -0,0 +1,110 @@
+package com.learning.oauth.resource_server.config;
+
+import com.learning.oauth.resource_server.logging.CachedClock;
+import com.learning.oauth.resource_server.model.ErrorResponse;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.server.resource.web.BearerTokenAuthenticationEntryPoint;
+import org.springframework.security.oauth2.server.resource.web.access.BearerTokenAccessDeniedHandler;
+import org.springframework.security.web.AuthenticationEntryPoint;
+import org.springframework.security.web.access.AccessDeniedHandler;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+
+/**
+ * Gives the {@code 401}/{@code 403} failures of the security filter chain the same bodies as
+ * {@link GlobalExceptionHandler} gives those raised behind it.
+ * <p>
+ * A missing or rejected bearer token and a request denied by the {@code AuthorizationFilter} never reach
+ * Spring MVC. Spring Security answers them with the {@link BearerTokenAuthenticationEntryPoint} and the
+ * {@link BearerTokenAccessDeniedHandler}, which only set the status and {@code WWW-Authenticate}. This
+ * handler delegates to them and then writes the body: a problem detail if the client prefers one, otherwise
+ * the {@code ErrorResponse} from the {@link ErrorResponseWriter} templates or, with templates disabled,
+ * serialized by the {@link ObjectMapper}.
+ * </p>
+ * <p>
+ * A bearer token error with another status, such as {@code 400} for a malformed request, keeps the empty
+ * body of the delegate.
+ * </p>
+ */
+@Component
+public class SecurityErrorResponseHandler implements AuthenticationEntryPoint, AccessDeniedHandler {
+
+    private static final String ACCESS_DENIED_MESSAGE = "Access is denied.";
+
+    private final AuthenticationEntryPoint bearerEntryPoint = new BearerTokenAuthenticationEntryPoint();
+    private final AccessDeniedHandler bearerAccessDeniedHandler = new BearerTokenAccessDeniedHandler();
+    private final ErrorResponseWriter errorResponseWriter;
+    private final ProblemDetailWriter problemDetailWriter;
+    private final ObjectMapper objectMapper;
+    private final CachedClock clock;
+
+    public SecurityErrorResponseHandler(ErrorResponseWriter errorResponseWriter,
+                                        ProblemDetailWriter problemDetailWriter, ObjectMapper objectMapper,
+                                        CachedClock clock) {
+        this.errorResponseWriter = errorResponseWriter;
+        this.problemDetailWriter = problemDetailWriter;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+    }
+
+    @Override
+    public void commence(HttpServletRequest request, HttpServletResponse response,
+                         AuthenticationException authException) throws IOException, ServletException {
+        bearerEntryPoint.commence(request, response, authException);
+        writeBody(request, response, messageOf(authException));
+    }
+
+    @Override
+    public void handle(HttpServletRequest request, HttpServletResponse response,
+                       AccessDeniedException accessDeniedException) throws IOException, ServletException {
+        bearerAccessDeniedHandler.handle(request, response, accessDeniedException);
+        writeBody(request, response, ACCESS_DENIED_MESSAGE);
+    }
+
+    /**
+     * The message {@link GlobalExceptionHandler} uses: the OAuth 2.0 error description if there is one.
+     */
+    private static String messageOf(AuthenticationException ex) {
+        if (ex instanceof OAuth2AuthenticationException oauth2Ex
+                && oauth2Ex.getError() != null && oauth2Ex.getError().getDescription() != null) {
+            return oauth2Ex.getError().getDescription();
+        }
+        return ex.getMessage();
+    }
+
+    private void writeBody(HttpServletRequest request, HttpServletResponse response, String message)
+            throws IOException {
+        ErrorKind kind;
+        if (response.getStatus() == HttpStatus.UNAUTHORIZED.value()) {
+            kind = ErrorKind.UNAUTHORIZED;
+        } else if (response.getStatus() == HttpStatus.FORBIDDEN.value()) {
+            kind = ErrorKind.FORBIDDEN;
+        } else {
+            return;
+        }
+        CachedClock.Now now = clock.now();
+        String path = request.getRequestURI();
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (problemDetailWriter.isPreferred(request)
+                && problemDetailWriter.write(response, kind, now.iso(), message, path, null)) {
+            return;
+        }
+        if (errorResponseWriter.write(response, kind.status(), now.dateTime(), message, path)
+                || response.isCommitted()) {
+            return;
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                new ErrorResponse(now.dateTime(), kind.status().value(), kind.title(), message, path));
+    }
+}
@@ -1,8 +1,10 @@
 package com.learning.oauth.resource_server.config;
 
+import com.learning.oauth.resource_server.logging.PhaseTimingInterceptor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
@@ -19,6 +21,11 @@ public class WebConfig {
                         .allowedHeaders("*") // Allow all headers
                         .maxAge(3600); // Cache pre-flight response for 1 hour
             }
+
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(new PhaseTimingInterceptor()); // Delimits handler / serialization phases
+            }
         };
     }
 }
\ No newline at end of file
@@ -0,0 +1,154 @@
+package com.learning.oauth.resource_server.logging;
+
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.ObjectWriteContext;
+import tools.jackson.core.json.JsonFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Offline decoder turning {@link MappedAccessLog} segments back into JSON lines on standard output.
+ * <p>
+ * Arguments are segment files or log directories; the segments of a directory are decoded in sequence
+ * order. Route ids are resolved through the {@code routes.idx} dictionary next to each segment. Empty
+ * slots are skipped.
+ * </p>
+ *
+ * <pre>
+ * java -cp resource-server.jar com.learning.oauth.resource_server.logging.AccessLogDecoder logs/access
+ *
+ * {"timestamp":"2025-01-01T12:00:00.123Z","route":"GET /users/status","status":200,"latencyMicros":1830,
+ *  "subject":"5f1c9a0e3b7d2c41","requestBytes":0,"responseBytes":17}
+ * </pre>
+ */
+public final class AccessLogDecoder {
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final Map<Path, Map<Integer, String>> routesByDirectory = new HashMap<>();
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: AccessLogDecoder <segment file or directory>...");
+            System.exit(2);
+        }
+        AccessLogDecoder decoder = new AccessLogDecoder();
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        for (String arg : args) {
+            for (Path segment : segmentsOf(Paths.get(arg))) {
+                decoder.decode(segment, out);
+            }
+        }
+        out.flush();
+    }
+
+    private static List<Path> segmentsOf(Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            return List.of(path);
+        }
+        try (Stream<Path> files = Files.list(path)) {
+            return files.filter(file -> AccessLogFormat.sequenceOf(file) >= 0)
+                    .sorted(Comparator.comparingLong(AccessLogFormat::sequenceOf))
+                    .toList();
+        }
+    }
+
+    /**
+     * Writes one JSON line per recorded exchange of the segment.
+     *
+     * @param segment the segment file
+     * @param out     where the lines are written
+     * @throws IOException if the segment cannot be read or is not an access log segment
+     */
+    void decode(Path segment, Writer out) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.limit() < AccessLogFormat.HEADER_SIZE
+                || buffer.getInt(AccessLogFormat.HEADER_MAGIC) != AccessLogFormat.MAGIC) {
+            throw new IOException(segment + " is not an access log segment");
+        }
+        if (buffer.getShort(AccessLogFormat.HEADER_VERSION) != AccessLogFormat.VERSION) {
+            throw new IOException(segment + " has unsupported version "
+                    + buffer.getShort(AccessLogFormat.HEADER_VERSION));
+        }
+        int recordSize = buffer.getShort(AccessLogFormat.HEADER_RECORD_SIZE);
+        if (recordSize < AccessLogFormat.RECORD_SIZE) {
+            throw new IOException(segment + " has an invalid record size " + recordSize);
+        }
+        Map<Integer, String> routes = routesOf(segment.toAbsolutePath().getParent());
+
+        for (int offset = AccessLogFormat.HEADER_SIZE; offset + recordSize <= buffer.limit(); offset += recordSize) {
+            long timestamp = buffer.getLong(offset + AccessLogFormat.TIMESTAMP);
+            if (timestamp == 0) {
+                continue;
+            }
+            StringWriter line = new StringWriter(192);
+            try (JsonGenerator generator = jsonFactory.createGenerator(ObjectWriteContext.empty(), line)) {
+                generator.writeStartObject();
+                generator.writeStringProperty("timestamp", Instant.ofEpochMilli(timestamp).toString());
+                generator.writeStringProperty("route", routeOf(routes,
+                        Short.toUnsignedInt(buffer.getShort(offset + AccessLogFormat.ROUTE_ID))));
+                generator.writeNumberProperty("status", buffer.getShort(offset + AccessLogFormat.STATUS));
+                generator.writeNumberProperty("latencyMicros",
+                        buffer.getInt(offset + AccessLogFormat.LATENCY_MICROS));
+                long subjectHash = buffer.getLong(offset + AccessLogFormat.SUBJECT_HASH);
+                if (subjectHash != 0) {
+                    generator.writeStringProperty("subject", String.format("%016x", subjectHash));
+                }
+                long requestBytes = buffer.getLong(offset + AccessLogFormat.REQUEST_BYTES);
+                if (requestBytes >= 0) {
+                    generator.writeNumberProperty("requestBytes", requestBytes);
+                }
+                generator.writeNumberProperty("responseBytes",
+                        buffer.getLong(offset + AccessLogFormat.RESPONSE_BYTES));
+                generator.writeEndObject();
+            }
+            out.write(line.toString());
+            out.write('\n');
+        }
+    }
+
+    private static String routeOf(Map<Integer, String> routes, int routeId) {
+        if (routeId == AccessLogFormat.UNKNOWN_ROUTE_ID) {
+            return PhaseTimers.UNKNOWN_ROUTE;
+        }
+        String route = routes.get(routeId);
+        return route != null ? route : "#" + routeId;
+    }
+
+    private Map<Integer, String> routesOf(Path directory) throws IOException {
+        Map<Integer, String> routes = routesByDirectory.get(directory);
+        if (routes != null) {
+            return routes;
+        }
+        routes = new HashMap<>();
+        Path file = directory.resolve(AccessLogFormat.ROUTES_FILE);
+        List<String> lines = Files.exists(file) ? Files.readAllLines(file, StandardCharsets.UTF_8) : List.of();
+        for (String line : lines) {
+            int tab = line.indexOf('\t');
+            if (tab > 0) {
+                routes.put(Integer.parseInt(line.substring(0, tab)), line.substring(tab + 1));
+            }
+        }
+        routesByDirectory.put(directory, routes);
+        return routes;
+    }
+}
@@ -0,0 +1,76 @@
+package com.learning.oauth.resource_server.logging;
+
+import java.nio.file.Path;
+
+/**
+ * On-disk layout of the binary access log written by {@link MappedAccessLog} and read by {@link AccessLogDecoder}.
+ * <p>
+ * A log directory holds numbered segment files ({@code access-00000001.alog}, ...) and a route dictionary
+ * ({@code routes.idx}, one {@code id<TAB>route} line per route). Every segment starts with a header slot
+ * followed by fixed-size records; all values are big-endian. Slots whose timestamp is {@code 0} are empty,
+ * either because the segment was not filled up or because a write was interrupted.
+ * </p>
+ *
+ * <pre>
+ * header (40 bytes)                    record (40 bytes)
+ *  0 int   magic 'ALOG'                  0 long  timestamp, epoch millis (written last)
+ *  4 short version                       8 long  subject hash, 0 if anonymous
+ *  6 short record size                  16 long  request bytes, -1 if unknown
+ *  8 long  created, epoch millis        24 long  response bytes
+ * 16 long  segment sequence             32 int   latency, microseconds
+ *                                       36 short route id (unsigned)
+ *                                       38 short status
+ * </pre>
+ */
+final class AccessLogFormat {
+
+    static final int MAGIC = 0x414C4F47;
+    static final short VERSION = 1;
+
+    static final int HEADER_SIZE = 40;
+    static final int RECORD_SIZE = 40;
+
+    static final int HEADER_MAGIC = 0;
+    static final int HEADER_VERSION = 4;
+    static final int HEADER_RECORD_SIZE = 6;
+    static final int HEADER_CREATED = 8;
+    static final int HEADER_SEQUENCE = 16;
+
+    static final int TIMESTAMP = 0;
+    static final int SUBJECT_HASH = 8;
+    static final int REQUEST_BYTES = 16;
+    static final int RESPONSE_BYTES = 24;
+    static final int LATENCY_MICROS = 32;
+    static final int ROUTE_ID = 36;
+    static final int STATUS = 38;
+
+    /** Route id of requests that matched no handler, and of routes beyond {@link #MAX_ROUTE_ID}. */
+    static final int UNKNOWN_ROUTE_ID = 0;
+    static final int MAX_ROUTE_ID = 0xFFFF;
+
+    static final String ROUTES_FILE = "routes.idx";
+    static final String SEGMENT_PREFIX = "access-";
+    static final String SEGMENT_SUFFIX = ".alog";
+
+    private AccessLogFormat() {
+    }
+
+    static Path segmentPath(Path directory, long sequence) {
+        return directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * @return the sequence number of a segment file name, or {@code -1} if it is not a segment
+     */
+    static long sequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.learning.oauth.resource_server.logging;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts handled exceptions per {@code (handler, exception type, route)} and rate-limits their logging.
+ * <p>
+ * During an incident every failing request used to log a warning, and the generic handler a full stack
+ * trace, flooding the console and slowing every thread down. Each exception handler now asks
+ * {@link #record} first: the first {@code full-log-limit} occurrences of a key in each {@code summary-interval}
+ * are logged by the handler as before; later ones are only counted, in {@link LongAdder}s whose cells are
+ * striped across threads. At the end of every interval, a background thread logs one line per key that had
+ * suppressed occurrences and resets the budget of every key.
+ * </p>
+ * <p>
+ * Routes are route templates (e.g. {@code /users/{id}}), never raw paths, so the number of keys stays bounded.
+ * </p>
+ *
+ * <h3>Metrics:</h3>
+ * <ul>
+ *     <li>{@code http.server.exceptions{handler, exception, route}}: all occurrences, logged or not</li>
+ * </ul>
+ *
+ * @see ExceptionLoggingProperties
+ */
+@Slf4j
+public class AggregatingExceptionLogger implements SmartLifecycle {
+
+    static final String METRIC = "http.server.exceptions";
+
+    private final ExceptionLoggingProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<Key, Counts> counts = new ConcurrentHashMap<>();
+
+    private volatile ScheduledExecutorService scheduler;
+
+    /**
+     * @param properties    full log limit and summary interval
+     * @param meterRegistry registry the per-key counters are registered with
+     */
+    public AggregatingExceptionLogger(ExceptionLoggingProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Counts one occurrence.
+     *
+     * @param handler   the handling method, e.g. {@code handleAccessDenied}
+     * @param exception the handled exception
+     * @param request   the failed request
+     * @return {@code true} if the caller should log this occurrence in full
+     */
+    public boolean record(String handler, Throwable exception, HttpServletRequest request) {
+        if (!properties.isEnabled()) {
+            return true;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String route = pattern != null ? pattern.toString() : PhaseTimers.UNKNOWN_ROUTE;
+        Key key = new Key(handler, exception.getClass(), route);
+        Counts entry = counts.get(key);
+        if (entry == null) {
+            entry = counts.computeIfAbsent(key, this::register);
+        }
+        entry.total.increment();
+        int limit = properties.getFullLogLimit();
+        if (entry.logged.get() < limit && entry.logged.incrementAndGet() <= limit) {
+            return true;
+        }
+        entry.suppressed.increment();
+        return false;
+    }
+
+    private Counts register(Key key) {
+        Counts entry = new Counts();
+        FunctionCounter.builder(METRIC, entry.total, LongAdder::sum)
+                .description("Exceptions handled by the global exception handler")
+                .tag("handler", key.handler())
+                .tag("exception", key.type().getSimpleName())
+                .tag("route", key.route())
+                .register(meterRegistry);
+        return entry;
+    }
+
+    /**
+     * Logs one line per key whose occurrences were suppressed since the last summary, and starts a new window
+     * of {@code full-log-limit} full logs per key.
+     */
+    private void summarize() {
+        counts.forEach((key, entry) -> {
+            entry.logged.set(0);
+            long suppressed = entry.suppressed.sum();
+            long delta = suppressed - entry.lastSummarized;
+            if (delta > 0) {
+                entry.lastSummarized = suppressed;
+                log.warn("{}: {} more {} on route {} since the last summary ({} in total)",
+                        key.handler(), delta, key.type().getName(), key.route(), entry.total.sum());
+            }
+        });
+    }
+
+    @Override
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "exception-log-summary");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getSummaryInterval().toMillis();
+        executor.scheduleAtFixedRate(this::summarize, interval, interval, TimeUnit.MILLISECONDS);
+        scheduler = executor;
+    }
+
+    @Override
+    public void stop() {
+        ScheduledExecutorService executor = scheduler;
+        if (executor != null) {
+            scheduler = null;
+            executor.shutdownNow();
+            try {
+                executor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            summarize();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    private record Key(String handler, Class<?> type, String route) {
+    }
+
+    private static final class Counts {
+
+        private final LongAdder total = new LongAdder();
+        private final LongAdder suppressed = new LongAdder();
+        private final AtomicInteger logged = new AtomicInteger();
+
+        /** Only accessed by the summary thread, and by {@code stop()} once it has terminated. */
+        private long lastSummarized;
+    }
+}
@@ -0,0 +1,192 @@
+package com.learning.oauth.resource_server.logging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link ExchangeLogSink} that hands events to a dedicated consumer thread through an {@link EventRingBuffer}.
+ * <p>
+ * The servlet thread only publishes the already captured {@link ExchangeLogEvent}; formatting and writing
+ * happen on the {@code request-log-writer} thread, which drains the buffer into the delegate sink. When the
+ * consumer falls behind, the configured {@link RequestLoggingProperties.OverflowPolicy} decides whether
+ * new events are dropped, sampled or briefly waited for.
+ * </p>
+ * <p>
+ * The sink stops after the web server (see {@link #getPhase()}) and drains what is left in the buffer.
+ * Events published while it is not running are written synchronously.
+ * </p>
+ *
+ * <h3>Metrics:</h3>
+ * <ul>
+ *     <li>{@code request.logging.events.dropped{reason=overflow|sampled}}: events that were never written</li>
+ *     <li>{@code request.logging.queue.size}: events waiting for the consumer</li>
+ * </ul>
+ *
+ * @see RequestLoggingProperties.Async
+ */
+@Slf4j
+public class AsyncExchangeLogSink implements ExchangeLogSink, SmartLifecycle {
+
+    static final String DROPPED_METRIC = "request.logging.events.dropped";
+    static final String QUEUE_METRIC = "request.logging.queue.size";
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final ExchangeLogSink delegate;
+    private final RequestLoggingProperties.Async properties;
+    private final EventRingBuffer<ExchangeLogEvent> buffer;
+    private final int sampleThreshold;
+    private final Counter overflowDrops;
+    private final Counter sampledDrops;
+
+    private volatile Thread consumer;
+    private volatile boolean running;
+    private volatile boolean sleeping;
+
+    /**
+     * @param delegate      the sink that formats and writes events on the consumer thread
+     * @param properties    buffer size and overflow policy
+     * @param meterRegistry registry for the drop counters and queue gauge
+     */
+    public AsyncExchangeLogSink(ExchangeLogSink delegate, RequestLoggingProperties.Async properties,
+                                MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.properties = properties;
+        this.buffer = new EventRingBuffer<>(properties.getCapacity());
+        this.sampleThreshold = (int) (buffer.capacity() * properties.getSampleThreshold());
+        this.overflowDrops = Counter.builder(DROPPED_METRIC)
+                .description("Request log events discarded by the asynchronous pipeline")
+                .tag("reason", "overflow")
+                .register(meterRegistry);
+        this.sampledDrops = Counter.builder(DROPPED_METRIC)
+                .description("Request log events discarded by the asynchronous pipeline")
+                .tag("reason", "sampled")
+                .register(meterRegistry);
+        Gauge.builder(QUEUE_METRIC, buffer, EventRingBuffer::size)
+                .description("Request log events waiting to be written")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void accept(ExchangeLogEvent event) {
+        if (!running) {
+            delegate.accept(event);
+            return;
+        }
+        boolean published = switch (properties.getOverflowPolicy()) {
+            case DROP -> buffer.offer(event);
+            case SAMPLE -> offerSampled(event);
+            case BLOCK -> offerBlocking(event);
+        };
+        if (!published) {
+            overflowDrops.increment();
+        } else if (sleeping) {
+            wakeConsumer();
+        }
+    }
+
+    private boolean offerSampled(ExchangeLogEvent event) {
+        if (buffer.size() >= sampleThreshold && ThreadLocalRandom.current().nextInt(properties.getSampleRate()) != 0) {
+            sampledDrops.increment();
+            return true;
+        }
+        return buffer.offer(event);
+    }
+
+    private boolean offerBlocking(ExchangeLogEvent event) {
+        if (buffer.offer(event)) {
+            return true;
+        }
+        long deadline = System.nanoTime() + properties.getBlockTimeout().toNanos();
+        do {
+            wakeConsumer();
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+            if (buffer.offer(event)) {
+                return true;
+            }
+        } while (System.nanoTime() < deadline && running);
+        return false;
+    }
+
+    private void wakeConsumer() {
+        Thread thread = consumer;
+        if (thread != null) {
+            sleeping = false;
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void drain() {
+        while (running) {
+            if (drainBuffer() == 0) {
+                sleeping = true;
+                if (buffer.size() == 0 && running) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                sleeping = false;
+            }
+        }
+        drainBuffer();
+    }
+
+    private int drainBuffer() {
+        int drained = 0;
+        ExchangeLogEvent event;
+        while ((event = buffer.poll()) != null) {
+            try {
+                delegate.accept(event);
+            } catch (RuntimeException e) {
+                log.warn("Failed to write request log event {}: {}", event.logId(), e.getMessage());
+            }
+            drained++;
+        }
+        return drained;
+    }
+
+    @Override
+    public void start() {
+        Thread thread = new Thread(this::drain, "request-log-writer");
+        thread.setDaemon(true);
+        running = true;
+        consumer = thread;
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        Thread thread = consumer;
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            consumer = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Starts before and stops after the embedded web server, whose phase is {@code DEFAULT_PHASE - 2048},
+     * so requests completing during graceful shutdown are still written. Lifecycles sharing a phase are
+     * stopped in no defined order, hence the strictly lower phase.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 2048 - 1;
+    }
+}
@@ -0,0 +1,71 @@
+package com.learning.oauth.resource_server.logging;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the first {@code limit} bytes written to it and counts the rest.
+ * <p>
+ * The backing array starts small and grows geometrically up to {@code limit}, so small payloads stay cheap
+ * and large ones never cost more than {@code limit} bytes of heap.
+ * </p>
+ */
+final class BoundedByteCapture {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final int limit;
+    private byte[] bytes;
+    private int count;
+    private long total;
+
+    BoundedByteCapture(int limit) {
+        this.limit = limit;
+        this.bytes = new byte[Math.min(INITIAL_CAPACITY, limit)];
+    }
+
+    void write(int b) {
+        total++;
+        if (count < limit) {
+            ensureCapacity(count + 1);
+            bytes[count++] = (byte) b;
+        }
+    }
+
+    void write(byte[] source, int offset, int length) {
+        total += length;
+        int kept = Math.min(length, limit - count);
+        if (kept > 0) {
+            ensureCapacity(count + kept);
+            System.arraycopy(source, offset, bytes, count, kept);
+            count += kept;
+        }
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.min(limit, Math.max(required, bytes.length << 1)));
+        }
+    }
+
+    /**
+     * Discards everything written so far, keeping the backing array for reuse.
+     */
+    void reset() {
+        count = 0;
+        total = 0;
+    }
+
+    /**
+     * @return a copy of the captured bytes (at most {@code limit})
+     */
+    byte[] toByteArray() {
+        return Arrays.copyOf(bytes, count);
+    }
+
+    /**
+     * @return the number of bytes written, including those beyond the limit
+     */
+    long total() {
+        return total;
+    }
+}
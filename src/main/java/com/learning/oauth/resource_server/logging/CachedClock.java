@@ -0,0 +1,126 @@
+package com.learning.oauth.resource_server.logging;
+
+import org.springframework.context.SmartLifecycle;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Millisecond-resolution "now" shared by error responses and request log events.
+ * <p>
+ * Every error response and logged exchange used to call {@code LocalDateTime.now()} and format the result
+ * with {@code DateTimeFormatter.ISO_LOCAL_DATE_TIME}. Here, a background tick reads the source clock every
+ * {@code tick-interval} and, when the millisecond has changed, publishes a {@link Now} holding the epoch
+ * milliseconds, the local date-time and its ISO string; callers only read a volatile field. A value can
+ * be up to one tick interval old.
+ * </p>
+ * <p>
+ * With {@code strict}, and whenever the tick is not running (before start and after stop), every call reads
+ * the source clock and formats the time itself.
+ * </p>
+ *
+ * @see ClockProperties
+ */
+public class CachedClock implements SmartLifecycle {
+
+    private final ClockProperties properties;
+    private final Clock source;
+    private final boolean strict;
+
+    private volatile Now current;
+    private volatile ScheduledExecutorService scheduler;
+
+    /**
+     * @param properties strict mode and tick interval
+     */
+    public CachedClock(ClockProperties properties) {
+        this(properties, Clock.systemDefaultZone());
+    }
+
+    /**
+     * @param properties strict mode and tick interval
+     * @param source     clock providing the time and the zone of the local date-time, e.g. a fixed clock in tests
+     */
+    public CachedClock(ClockProperties properties, Clock source) {
+        this.properties = properties;
+        this.source = source;
+        this.strict = properties.isStrict();
+        this.current = at(source.millis());
+    }
+
+    /**
+     * @return the current time, as of the last tick unless strict
+     */
+    public Now now() {
+        if (strict || scheduler == null) {
+            return at(source.millis());
+        }
+        return current;
+    }
+
+    private void tick() {
+        long millis = source.millis();
+        if (millis != current.epochMillis()) {
+            current = at(millis);
+        }
+    }
+
+    private Now at(long millis) {
+        LocalDateTime dateTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), source.getZone());
+        return new Now(millis, dateTime, DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(dateTime));
+    }
+
+    @Override
+    public void start() {
+        if (strict) {
+            return;
+        }
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cached-clock");
+            thread.setDaemon(true);
+            return thread;
+        });
+        current = at(source.millis());
+        long interval = Math.max(1, properties.getTickInterval().toNanos());
+        executor.scheduleAtFixedRate(this::tick, interval, interval, TimeUnit.NANOSECONDS);
+        scheduler = executor;
+    }
+
+    @Override
+    public void stop() {
+        ScheduledExecutorService executor = scheduler;
+        if (executor != null) {
+            scheduler = null;
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    /**
+     * Ticks until after the web server, in phase {@code DEFAULT_PHASE - 2048}, has stopped, so in-flight
+     * requests keep reading the cached time; the phase is strictly lower as same-phase stops are unordered.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 2048 - 1;
+    }
+
+    /**
+     * One reading of the clock.
+     *
+     * @param epochMillis milliseconds since the epoch
+     * @param dateTime    the same instant as a local date-time in the clock's zone
+     * @param iso         {@code dateTime} formatted with {@code DateTimeFormatter.ISO_LOCAL_DATE_TIME}
+     */
+    public record Now(long epochMillis, LocalDateTime dateTime, String iso) {
+    }
+}
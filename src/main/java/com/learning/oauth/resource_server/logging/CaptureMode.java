@@ -0,0 +1,16 @@
+package com.learning.oauth.resource_server.logging;
+
+/**
+ * How much of an exchange the request logging filter captures.
+ */
+public enum CaptureMode {
+
+    /** Not wrapped, timed, sampled or logged at all. */
+    SKIP,
+
+    /** Logged with method, URI, status and headers, but without bodies. */
+    HEADERS,
+
+    /** Logged with bodies, bounded to {@code MAX_PAYLOAD_LENGTH} bytes each. */
+    BODY
+}
@@ -0,0 +1,137 @@
+package com.learning.oauth.resource_server.logging;
+
+import com.learning.oauth.resource_server.security.RouteTree;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the {@link CaptureMode} of an exchange from its route and content types.
+ * <p>
+ * Route rules are compiled once into a {@link RouteTree}, so resolving the mode of a request is a walk over
+ * its path segments, whatever the number of rules. Content-type rules are matched with
+ * {@link MediaType#includes(MediaType)}; the result is cached per distinct content-type header value, so
+ * each value is parsed and matched only once.
+ * </p>
+ *
+ * <h3>Zero-cost probes:</h3>
+ * <p>
+ * With {@code skip-probes} (the default), Prometheus scrapes ({@code /actuator/prometheus}) and health
+ * checks ({@code /actuator/health/**}) are {@link CaptureMode#SKIP skipped} ahead of all configured rules.
+ * </p>
+ *
+ * @see RequestLoggingProperties.Capture
+ */
+public class CapturePolicy {
+
+    static final String MODE_ATTRIBUTE = CapturePolicy.class.getName() + ".MODE";
+
+    private static final int MAX_CACHED_CONTENT_TYPES = 256;
+    private static final List<String> PROBE_PATTERNS = List.of("/actuator/prometheus", "/actuator/health/**");
+
+    private final CaptureMode defaultMode;
+    private final RouteTree<CaptureMode> routes;
+    private final List<ContentTypeRule> contentTypeRules;
+    private final Map<String, Optional<CaptureMode>> modeByContentType = new ConcurrentHashMap<>();
+
+    public CapturePolicy(RequestLoggingProperties.Capture properties) {
+        this.defaultMode = properties.getDefaultMode();
+        RouteTree.Builder<CaptureMode> builder = RouteTree.builder();
+        if (properties.isSkipProbes()) {
+            for (String pattern : PROBE_PATTERNS) {
+                builder.route(null, pattern, CaptureMode.SKIP);
+            }
+        }
+        for (RequestLoggingProperties.RouteCapture route : properties.getRoutes()) {
+            builder.route(route.getMethod(), route.getPattern(), route.getMode());
+        }
+        this.routes = builder.build();
+        List<ContentTypeRule> rules = new ArrayList<>();
+        for (RequestLoggingProperties.ContentTypeCapture contentType : properties.getContentTypes()) {
+            rules.add(new ContentTypeRule(MediaType.parseMediaType(contentType.getType()), contentType.getMode()));
+        }
+        this.contentTypeRules = List.copyOf(rules);
+    }
+
+    /**
+     * Resolves the mode of a request from its route and request content type, before anything is wrapped.
+     * The result is kept as a request attribute, so filters further down the chain get it for free.
+     */
+    public CaptureMode resolve(HttpServletRequest request) {
+        if (request.getAttribute(MODE_ATTRIBUTE) instanceof CaptureMode resolved) {
+            return resolved;
+        }
+        CaptureMode mode = resolveUncached(request);
+        request.setAttribute(MODE_ATTRIBUTE, mode);
+        return mode;
+    }
+
+    private CaptureMode resolveUncached(HttpServletRequest request) {
+        CaptureMode mode = routes.size() > 0 ? routes.find(request) : null;
+        if (mode == null) {
+            mode = defaultMode;
+        }
+        if (mode == CaptureMode.SKIP) {
+            return mode;
+        }
+        return narrower(mode, forContentType(request.getContentType()));
+    }
+
+    /**
+     * @param contentType a response {@code Content-Type}, or {@code null}
+     * @return {@code true} unless a content-type rule excludes bodies of this type
+     */
+    public boolean isBodyCaptured(String contentType) {
+        return narrower(CaptureMode.BODY, forContentType(contentType)) == CaptureMode.BODY;
+    }
+
+    /**
+     * @param contentType a {@code Content-Type} header value, or {@code null}
+     * @return the mode of the first matching content-type rule, or {@code null} if none matches
+     */
+    public CaptureMode forContentType(String contentType) {
+        if (contentType == null || contentTypeRules.isEmpty()) {
+            return null;
+        }
+        Optional<CaptureMode> cached = modeByContentType.get(contentType);
+        if (cached != null) {
+            return cached.orElse(null);
+        }
+        CaptureMode mode = match(contentType);
+        if (modeByContentType.size() < MAX_CACHED_CONTENT_TYPES) {
+            modeByContentType.put(contentType, Optional.ofNullable(mode));
+        }
+        return mode;
+    }
+
+    private CaptureMode match(String contentType) {
+        MediaType mediaType;
+        try {
+            mediaType = MediaType.parseMediaType(contentType);
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        for (ContentTypeRule rule : contentTypeRules) {
+            if (rule.type().includes(mediaType)) {
+                return rule.mode();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the more restrictive of both modes; {@code null} leaves {@code mode} unchanged
+     */
+    public static CaptureMode narrower(CaptureMode mode, CaptureMode other) {
+        return other != null && other.ordinal() < mode.ordinal() ? other : mode;
+    }
+
+    private record ContentTypeRule(MediaType type, CaptureMode mode) {
+    }
+}
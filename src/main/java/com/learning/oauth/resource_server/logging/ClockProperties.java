@@ -0,0 +1,29 @@
+package com.learning.oauth.resource_server.logging;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Properties of the shared {@link CachedClock}, bound from {@code application.clock.*}.
+ *
+ * <pre>
+ * application:
+ *   clock:
+ *     strict: false
+ *     tick-interval: 1ms
+ * </pre>
+ *
+ * @see CachedClock
+ */
+@Data
+@ConfigurationProperties(prefix = "application.clock")
+public class ClockProperties {
+
+    /** Whether every call reads and formats the time itself, e.g. for tests asserting exact timestamps. */
+    private boolean strict = false;
+
+    /** How often the background tick refreshes the cached time. */
+    private Duration tickInterval = Duration.ofMillis(1);
+}
@@ -0,0 +1,95 @@
+package com.learning.oauth.resource_server.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lock-free multi-producer / single-consumer ring buffer.
+ * <p>
+ * Each slot carries a sequence number telling whether it is free for the producer claiming position
+ * {@code p} ({@code sequence == p}) or holds an element for the consumer at position {@code p}
+ * ({@code sequence == p + 1}). Producers claim positions with a CAS on the tail; the single consumer
+ * advances the head without any atomic read-modify-write. A full buffer is reported to the producer
+ * instead of waiting, so the overflow policy is left to the caller.
+ * </p>
+ *
+ * @param <E> element type
+ */
+final class EventRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * @param requestedCapacity minimum capacity; rounded up to the next power of two
+     */
+    EventRingBuffer(int requestedCapacity) {
+        if (requestedCapacity < 2) {
+            throw new IllegalArgumentException("Capacity must be at least 2: " + requestedCapacity);
+        }
+        int capacity = Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = capacity - 1;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return the approximate number of buffered elements
+     */
+    int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    /**
+     * @return {@code false} if the buffer is full
+     */
+    boolean offer(E element) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.setPlain(index, element);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Must only be called from the consumer thread.
+     *
+     * @return the oldest element, or {@code null} if none is ready
+     */
+    E poll() {
+        long position = head.getPlain();
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        E element = slots.getPlain(index);
+        slots.setPlain(index, null);
+        sequences.set(index, position + mask + 1);
+        head.setRelease(position + 1);
+        return element;
+    }
+}
@@ -0,0 +1,33 @@
+package com.learning.oauth.resource_server.logging;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Properties of the aggregating exception logger, bound from {@code application.exception-logging.*}.
+ *
+ * <pre>
+ * application:
+ *   exception-logging:
+ *     enabled: true
+ *     full-log-limit: 10
+ *     summary-interval: 1m
+ * </pre>
+ *
+ * @see AggregatingExceptionLogger
+ */
+@Data
+@ConfigurationProperties(prefix = "application.exception-logging")
+public class ExceptionLoggingProperties {
+
+    /** Whether repeated exceptions are aggregated; when off, every occurrence is logged. */
+    private boolean enabled = true;
+
+    /** Occurrences per (handler, exception type, route) and summary interval logged in full before summarizing. */
+    private int fullLogLimit = 10;
+
+    /** How often suppressed occurrences are summarized. */
+    private Duration summaryInterval = Duration.ofMinutes(1);
+}
@@ -0,0 +1,50 @@
+package com.learning.oauth.resource_server.logging;
+
+import java.util.List;
+
+/**
+ * Immutable snapshot of one request/response exchange, captured on the servlet thread and formatted later.
+ * <p>
+ * Everything the log output needs is copied out of the (recycled) servlet request and response when the
+ * exchange completes. Bodies are kept as bounded byte slices; {@code requestBodyLength} and
+ * {@code responseBodyLength} hold the full sizes so the formatter can tell that a slice was truncated.
+ * </p>
+ *
+ * @param logId              short identifier correlating the request and response log entries
+ * @param timestamp          when the exchange completed, as an ISO-8601 local date-time from the {@link CachedClock}
+ * @param method             HTTP method
+ * @param uri                request URI
+ * @param queryString        query string, or {@code null}
+ * @param clientIp           remote address
+ * @param requestHeaders     request headers (first value per name), in arrival order
+ * @param requestBody        at most {@code MAX_PAYLOAD_LENGTH} bytes of the request body
+ * @param requestBodyLength  full length of the captured request body
+ * @param requestEncoding    request character encoding, or {@code null}
+ * @param timeTakenMillis    time spent in the filter chain
+ * @param status             response status
+ * @param responseHeaders    response headers (first value per name)
+ * @param responseBody       at most {@code MAX_PAYLOAD_LENGTH} bytes of the response body
+ * @param responseBodyLength full length of the captured response body
+ * @param responseEncoding   response character encoding, or {@code null}
+ */
+public record ExchangeLogEvent(
+        String logId,
+        String timestamp,
+        String method,
+        String uri,
+        String queryString,
+        String clientIp,
+        List<Header> requestHeaders,
+        byte[] requestBody,
+        long requestBodyLength,
+        String requestEncoding,
+        long timeTakenMillis,
+        int status,
+        List<Header> responseHeaders,
+        byte[] responseBody,
+        long responseBodyLength,
+        String responseEncoding) {
+
+    public record Header(String name, String value) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.learning.oauth.resource_server.logging;
+
+/**
+ * Destination of captured {@link ExchangeLogEvent}s.
+ *
+ * @see TextExchangeLogSink
+ * @see AsyncExchangeLogSink
+ */
+@FunctionalInterface
+public interface ExchangeLogSink {
+
+    /**
+     * Accepts a completed exchange. Implementations must not block the calling servlet thread for long.
+     *
+     * @param event the captured exchange
+     */
+    void accept(ExchangeLogEvent event);
+}
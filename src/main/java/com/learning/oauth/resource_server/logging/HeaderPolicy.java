@@ -0,0 +1,224 @@
+package com.learning.oauth.resource_server.logging;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.ObjectReadContext;
+import tools.jackson.core.json.JsonFactory;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Decides which headers are logged and how their values are sanitized.
+ * <p>
+ * All configured names (allowlist, redaction and JWT masking) are compiled at startup into a
+ * case-insensitive perfect hash table: a seed is searched for which no two names share a slot, so a lookup
+ * hashes the incoming name once (folding ASCII case on the fly, without allocating a lower-case copy) and
+ * confirms the single candidate with {@link String#equalsIgnoreCase(String)}. No regex runs per request.
+ * </p>
+ *
+ * <h3>Actions:</h3>
+ * <ul>
+ *     <li>Redacted headers are logged as {@value #REDACTED}</li>
+ *     <li>JWT-masked headers keep only the token's {@code kid} and {@code sub}, e.g.
+ *         {@code Bearer [REDACTED kid=Kx1 sub=f3a9...]}; any other value is fully redacted. The token is not
+ *         verified at this point, so both claims are reduced to safe characters and capped in length</li>
+ *     <li>With a non-empty allowlist, headers not listed anywhere are dropped; otherwise they are logged as is</li>
+ * </ul>
+ *
+ * @see RequestLoggingProperties.Headers
+ */
+public class HeaderPolicy {
+
+    public static final String REDACTED = "[REDACTED]";
+
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final int MAX_CLAIM_LENGTH = 64;
+    private static final int MAX_SEED_ATTEMPTS = 1 << 12;
+
+    private static final byte LOG = 1;
+    private static final byte REDACT = 2;
+    private static final byte MASK_JWT = 3;
+
+    private final String[] names;
+    private final byte[] actions;
+    private final int mask;
+    private final int seed;
+    private final int maxNameLength;
+    private final boolean dropUnlisted;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public HeaderPolicy(RequestLoggingProperties.Headers properties) {
+        Map<String, Byte> entries = new LinkedHashMap<>();
+        put(entries, properties.getAllowlist(), LOG);
+        put(entries, properties.getRedact(), REDACT);
+        put(entries, properties.getMaskJwt(), MASK_JWT);
+        this.dropUnlisted = !properties.getAllowlist().isEmpty();
+
+        int size = Integer.highestOneBit(Math.max(2, entries.size() * 2) - 1) << 1;
+        int found;
+        while ((found = findSeed(entries, size)) == 0) {
+            size <<= 1;
+        }
+        this.seed = found;
+        this.mask = size - 1;
+        this.names = new String[size];
+        this.actions = new byte[size];
+        int longest = 0;
+        for (Map.Entry<String, Byte> entry : entries.entrySet()) {
+            int slot = hash(entry.getKey(), seed) & mask;
+            names[slot] = entry.getKey();
+            actions[slot] = entry.getValue();
+            longest = Math.max(longest, entry.getKey().length());
+        }
+        this.maxNameLength = longest;
+    }
+
+    /**
+     * Later lists override earlier ones, so a name both allowed and redacted is redacted.
+     */
+    private static void put(Map<String, Byte> entries, List<String> names, byte action) {
+        for (String name : names) {
+            entries.put(name.toLowerCase(Locale.ROOT), action);
+        }
+    }
+
+    private static int findSeed(Map<String, Byte> entries, int size) {
+        boolean[] used = new boolean[size];
+        for (int seed = 1; seed <= MAX_SEED_ATTEMPTS; seed++) {
+            Arrays.fill(used, false);
+            boolean collision = false;
+            for (String name : entries.keySet()) {
+                int slot = hash(name, seed) & (size - 1);
+                if (used[slot]) {
+                    collision = true;
+                    break;
+                }
+                used[slot] = true;
+            }
+            if (!collision) {
+                return seed;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Case-insensitive for ASCII, which covers every valid header name.
+     */
+    private static int hash(String name, int seed) {
+        int h = seed;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                c += 'a' - 'A';
+            }
+            h = 31 * h + c;
+        }
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h;
+    }
+
+    private byte actionOf(String name) {
+        if (name.length() <= maxNameLength) {
+            int slot = hash(name, seed) & mask;
+            String candidate = names[slot];
+            if (candidate != null && candidate.equalsIgnoreCase(name)) {
+                return actions[slot];
+            }
+        }
+        return dropUnlisted ? 0 : LOG;
+    }
+
+    /**
+     * @param name  the header name, in any case
+     * @param value the raw header value
+     * @return the value to log, or {@code null} if the header must not be logged at all
+     */
+    public String sanitize(String name, String value) {
+        return switch (actionOf(name)) {
+            case LOG -> value;
+            case REDACT -> REDACTED;
+            case MASK_JWT -> maskJwt(value);
+            default -> null;
+        };
+    }
+
+    /**
+     * Replaces a bearer JWT by its {@code kid} and {@code sub}; never returns any part of the signature.
+     */
+    String maskJwt(String value) {
+        if (value == null || !value.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            return REDACTED;
+        }
+        int start = BEARER_PREFIX.length();
+        int firstDot = value.indexOf('.', start);
+        int secondDot = firstDot < 0 ? -1 : value.indexOf('.', firstDot + 1);
+        if (secondDot < 0) {
+            return BEARER_PREFIX + REDACTED;
+        }
+        String kid = stringClaim(value, start, firstDot, "kid");
+        String sub = stringClaim(value, firstDot + 1, secondDot, "sub");
+        StringBuilder masked = new StringBuilder(64).append(BEARER_PREFIX).append("[REDACTED");
+        if (kid != null) {
+            appendClaim(masked.append(" kid="), kid);
+        }
+        if (sub != null) {
+            appendClaim(masked.append(" sub="), sub);
+        }
+        return masked.append(']').toString();
+    }
+
+    /**
+     * Appends a claim of the unverified token: characters other than ASCII letters, digits and {@code -._:@}
+     * become {@code ?}, so a crafted value can neither break the log line (CR, LF, {@code ]}) nor inject
+     * markup into it, and only the first {@value #MAX_CLAIM_LENGTH} characters are kept.
+     */
+    private static void appendClaim(StringBuilder masked, String value) {
+        int length = Math.min(value.length(), MAX_CLAIM_LENGTH);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            boolean safe = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '.' || c == '_' || c == ':' || c == '@';
+            masked.append(safe ? c : '?');
+        }
+        if (value.length() > MAX_CLAIM_LENGTH) {
+            masked.append("...");
+        }
+    }
+
+    /**
+     * Reads one top-level string member of a base64url-encoded JSON segment with the streaming parser.
+     */
+    private String stringClaim(String token, int start, int end, String claim) {
+        byte[] json;
+        try {
+            json = Base64.getUrlDecoder().decode(token.substring(start, end).trim());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        try (JsonParser parser = jsonFactory.createParser(ObjectReadContext.empty(), json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+                String name = parser.currentName();
+                JsonToken valueToken = parser.nextToken();
+                if (claim.equals(name) && valueToken == JsonToken.VALUE_STRING) {
+                    return parser.getValueAsString();
+                }
+                parser.skipChildren();
+            }
+        } catch (JacksonException e) {
+            return null;
+        }
+        return null;
+    }
+}
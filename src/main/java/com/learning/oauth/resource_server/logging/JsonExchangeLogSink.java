@@ -0,0 +1,164 @@
+package com.learning.oauth.resource_server.logging;
+
+import org.slf4j.Logger;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.ObjectReadContext;
+import tools.jackson.core.ObjectWriteContext;
+import tools.jackson.core.json.JsonFactory;
+
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes each exchange as a single-line, machine-readable JSON event at {@code INFO}.
+ * <p>
+ * The event is produced with Jackson's streaming {@link JsonGenerator}; no object tree or
+ * {@code ObjectMapper} is involved. A body that is complete (not truncated) and consists of exactly one
+ * well-formed JSON value is embedded as JSON: verbatim as a raw value if it is on a single line, which
+ * checking only tokenizes, or else re-emitted token by token without the line breaks of pretty-printing,
+ * keeping every event on one line. Other bodies are embedded as JSON strings.
+ * </p>
+ *
+ * <pre>
+ * {"type":"http.exchange","id":"1a2b3c4d","timestamp":"2025-01-01T12:00:00.123","method":"GET",
+ *  "uri":"/oauth/users/status","clientIp":"127.0.0.1","durationMs":12,"status":200,
+ *  "request":{"headers":{...},"bodyLength":0},
+ *  "response":{"headers":{...},"bodyLength":17,"body":{"status":"UP"}}}
+ * </pre>
+ */
+public class JsonExchangeLogSink implements ExchangeLogSink {
+
+    static final String EVENT_TYPE = "http.exchange";
+
+    private final Logger log;
+    private final JsonFactory jsonFactory;
+
+    /**
+     * @param log the logger the events are written to
+     */
+    public JsonExchangeLogSink(Logger log) {
+        this.log = log;
+        this.jsonFactory = new JsonFactory();
+    }
+
+    @Override
+    public void accept(ExchangeLogEvent event) {
+        if (log.isInfoEnabled()) {
+            log.info(format(event));
+        }
+    }
+
+    String format(ExchangeLogEvent event) {
+        StringWriter out = new StringWriter(512 + event.requestBody().length + event.responseBody().length);
+        try (JsonGenerator generator = jsonFactory.createGenerator(ObjectWriteContext.empty(), out)) {
+            generator.writeStartObject();
+            generator.writeStringProperty("type", EVENT_TYPE);
+            generator.writeStringProperty("id", event.logId());
+            generator.writeStringProperty("timestamp", event.timestamp());
+            generator.writeStringProperty("method", event.method());
+            generator.writeStringProperty("uri", event.uri());
+            if (event.queryString() != null) {
+                generator.writeStringProperty("query", event.queryString());
+            }
+            generator.writeStringProperty("clientIp", event.clientIp());
+            generator.writeNumberProperty("durationMs", event.timeTakenMillis());
+            generator.writeNumberProperty("status", event.status());
+
+            generator.writeName("request");
+            writeMessage(generator, event.requestHeaders(), event.requestBody(), event.requestBodyLength(),
+                    event.requestEncoding());
+            generator.writeName("response");
+            writeMessage(generator, event.responseHeaders(), event.responseBody(), event.responseBodyLength(),
+                    event.responseEncoding());
+            generator.writeEndObject();
+        }
+        return out.toString();
+    }
+
+    private void writeMessage(JsonGenerator generator, List<ExchangeLogEvent.Header> headers,
+                              byte[] body, long bodyLength, String encoding) {
+        generator.writeStartObject();
+        generator.writeName("headers");
+        generator.writeStartObject();
+        for (ExchangeLogEvent.Header header : headers) {
+            generator.writeStringProperty(header.name(), header.value());
+        }
+        generator.writeEndObject();
+        generator.writeNumberProperty("bodyLength", bodyLength);
+        if (body.length > 0) {
+            boolean truncated = body.length < bodyLength;
+            String content = new String(body, charsetOf(encoding));
+            generator.writeName("body");
+            if (!truncated && isSingleJsonValue(content)) {
+                writeJsonValue(generator, content);
+            } else {
+                generator.writeString(content);
+            }
+            if (truncated) {
+                generator.writeBooleanProperty("truncated", true);
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Embeds a validated JSON value; a multi-line one is copied through the parser, which drops the
+     * whitespace between tokens and keeps numbers at their full precision.
+     */
+    private void writeJsonValue(JsonGenerator generator, String content) {
+        if (content.indexOf('\n') < 0 && content.indexOf('\r') < 0) {
+            generator.writeRawValue(content);
+            return;
+        }
+        try (JsonParser parser = jsonFactory.createParser(ObjectReadContext.empty(), content)) {
+            parser.nextToken();
+            generator.copyCurrentStructureExact(parser);
+        }
+    }
+
+    /**
+     * Tokenizes the content without materializing it, to make sure embedding it as JSON yields valid JSON.
+     */
+    private boolean isSingleJsonValue(String content) {
+        char first = firstNonWhitespace(content);
+        if (first != '{' && first != '[') {
+            return false;
+        }
+        try (JsonParser parser = jsonFactory.createParser(ObjectReadContext.empty(), content)) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                return false;
+            }
+            parser.skipChildren();
+            return parser.nextToken() == null;
+        } catch (JacksonException e) {
+            return false;
+        }
+    }
+
+    private static char firstNonWhitespace(String content) {
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                return c;
+            }
+        }
+        return 0;
+    }
+
+    private static Charset charsetOf(String encoding) {
+        if (encoding == null) {
+            return StandardCharsets.UTF_8;
+        }
+        try {
+            return Charset.forName(encoding);
+        } catch (IllegalArgumentException e) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+}
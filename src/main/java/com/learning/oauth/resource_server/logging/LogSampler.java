@@ -0,0 +1,69 @@
+package com.learning.oauth.resource_server.logging;
+
+import com.learning.oauth.resource_server.security.RouteTree;
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides which exchanges the request logging filter captures.
+ * <p>
+ * The head decision is taken when the request arrives, before anything is wrapped: the per-route rate of
+ * the first matching {@code routes} entry (looked up in a {@link RouteTree}) or the global {@code rate}.
+ * Rates of {@code 0} and {@code 1} are decided without drawing a random number. The tail decision is taken
+ * when the exchange completes and keeps errors and slow exchanges that the head decision skipped.
+ * </p>
+ *
+ * @see RequestLoggingProperties.Sampling
+ */
+public class LogSampler {
+
+    private final double rate;
+    private final RouteTree<Double> routeRates;
+    private final boolean tailEnabled;
+    private final int tailMinStatus;
+    private final long tailSlowMillis;
+
+    public LogSampler(RequestLoggingProperties.Sampling properties) {
+        this.rate = properties.getRate();
+        RouteTree.Builder<Double> routes = RouteTree.builder();
+        for (RequestLoggingProperties.RouteRate route : properties.getRoutes()) {
+            routes.route(route.getMethod(), route.getPattern(), route.getRate());
+        }
+        this.routeRates = properties.getRoutes().isEmpty() ? null : routes.build();
+        this.tailEnabled = properties.getTail().isEnabled();
+        this.tailMinStatus = properties.getTail().getMinStatus();
+        this.tailSlowMillis = properties.getTail().getSlowThreshold().toMillis();
+    }
+
+    /**
+     * @return {@code true} if the exchange should be captured with its bodies
+     */
+    public boolean sampleHead(HttpServletRequest request) {
+        double routeRate = rate;
+        if (routeRates != null) {
+            Double matched = routeRates.find(request);
+            if (matched != null) {
+                routeRate = matched;
+            }
+        }
+        if (routeRate >= 1.0) {
+            return true;
+        }
+        return routeRate > 0.0 && ThreadLocalRandom.current().nextDouble() < routeRate;
+    }
+
+    /**
+     * @return whether exchanges skipped by the head decision must still be timed for {@link #keepTail}
+     */
+    public boolean isTailEnabled() {
+        return tailEnabled;
+    }
+
+    /**
+     * @return {@code true} if an exchange that was not head-sampled must be logged anyway
+     */
+    public boolean keepTail(int status, long timeTakenMillis) {
+        return tailEnabled && (status >= tailMinStatus || timeTakenMillis >= tailSlowMillis);
+    }
+}
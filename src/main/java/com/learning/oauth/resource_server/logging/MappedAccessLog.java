@@ -0,0 +1,348 @@
+package com.learning.oauth.resource_server.logging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Audit access log that records every request as a fixed-size binary record in memory-mapped segment files.
+ * <p>
+ * Text logging formats and encodes each line and funnels it through an appender; at peak load it falls
+ * behind or has to drop lines. Here a servlet thread claims a slot in the current segment with a single
+ * atomic add and writes seven primitive fields straight into the mapping, without allocating, locking or
+ * making a system call. The kernel writes the dirty pages back in the background. Segments are
+ * pre-sized to {@code segment-size}. The {@code access-log-roller} thread always keeps the next segment
+ * mapped ahead of time: the thread whose claim overflows a segment only swaps it in, and the roller then
+ * forces the full segment to disk and maps another one. A servlet thread waits for the roller only if a
+ * whole segment fills up before the next one is mapped.
+ * </p>
+ * <p>
+ * If mapping the next segment ahead of time fails, the rolling thread opens one itself; if that fails too,
+ * the record is dropped and counted in {@code access.log.records.dropped}, and the next record tries again.
+ * </p>
+ * <p>
+ * Routes are stored as ids. A new route is appended to the {@code routes.idx} dictionary once, before the
+ * first record referencing it, and the dictionary is reloaded on startup so ids stay stable across restarts.
+ * Each start opens a new segment; existing segments are never written again. See {@link AccessLogFormat}
+ * for the layout and {@link AccessLogDecoder} for reading segments back.
+ * </p>
+ *
+ * @see RequestLoggingProperties.AccessLog
+ */
+@Slf4j
+public class MappedAccessLog implements SmartLifecycle {
+
+    static final String DROPPED_METRIC = "access.log.records.dropped";
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final Map<String, Integer> routeIds = new ConcurrentHashMap<>();
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final Counter dropped;
+
+    private volatile Segment current;
+    private volatile boolean running;
+    private ExecutorService roller;
+    private CompletableFuture<Segment> spare;
+    /** Whether the last attempt to open a segment failed; guarded by {@code this}. */
+    private boolean failing;
+    private int nextRouteId = AccessLogFormat.UNKNOWN_ROUTE_ID + 1;
+
+    public MappedAccessLog(RequestLoggingProperties.AccessLog properties, MeterRegistry meterRegistry) {
+        long size = properties.getSegmentSize().toBytes();
+        int minimum = AccessLogFormat.HEADER_SIZE + AccessLogFormat.RECORD_SIZE;
+        if (size < minimum || size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Access log segment size must be between " + minimum
+                    + " bytes and 2GB: " + properties.getSegmentSize());
+        }
+        long records = (size - AccessLogFormat.HEADER_SIZE) / AccessLogFormat.RECORD_SIZE;
+        this.enabled = properties.isEnabled();
+        this.directory = Paths.get(properties.getDirectory());
+        this.segmentSize = AccessLogFormat.HEADER_SIZE + (int) records * AccessLogFormat.RECORD_SIZE;
+        this.dropped = Counter.builder(DROPPED_METRIC)
+                .description("Access log records lost because no segment could be opened")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records one exchange; does nothing while the log is not running.
+     *
+     * @param timestampMillis when the request was received, epoch milliseconds
+     * @param route           the matched route, e.g. {@code GET /users/status}, or {@code null} if none matched
+     * @param status          the response status
+     * @param latencyMicros   time taken, in microseconds
+     * @param subjectHash     hash of the authenticated subject, or {@code 0} if anonymous
+     * @param requestBytes    request body length, or {@code -1} if unknown
+     * @param responseBytes   response body bytes written
+     */
+    public void record(long timestampMillis, String route, int status, long latencyMicros, long subjectHash,
+                       long requestBytes, long responseBytes) {
+        Segment segment = current;
+        if (segment == null) {
+            return;
+        }
+        int routeId = routeIdOf(route);
+        while (segment != null) {
+            int offset = segment.claim();
+            if (offset >= 0) {
+                segment.write(offset, timestampMillis, routeId, status, latencyMicros, subjectHash,
+                        requestBytes, responseBytes);
+                return;
+            }
+            segment = roll(segment);
+        }
+        dropped.increment();
+    }
+
+    private int routeIdOf(String route) {
+        if (route == null) {
+            return AccessLogFormat.UNKNOWN_ROUTE_ID;
+        }
+        Integer id = routeIds.get(route);
+        return id != null ? id : assignRouteId(route);
+    }
+
+    private synchronized int assignRouteId(String route) {
+        Integer id = routeIds.get(route);
+        if (id != null) {
+            return id;
+        }
+        if (nextRouteId > AccessLogFormat.MAX_ROUTE_ID) {
+            return AccessLogFormat.UNKNOWN_ROUTE_ID;
+        }
+        try {
+            Files.writeString(directory.resolve(AccessLogFormat.ROUTES_FILE), nextRouteId + "\t" + route + "\n",
+                    StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.warn("Failed to add route {} to the access log dictionary: {}", route, e.getMessage());
+            return AccessLogFormat.UNKNOWN_ROUTE_ID;
+        }
+        routeIds.put(route, nextRouteId);
+        return nextRouteId++;
+    }
+
+    /**
+     * Replaces a full segment with the pre-mapped spare, unless another thread already did. Without a spare,
+     * opens the next segment right away.
+     *
+     * @return the segment to claim a slot in, or {@code null} if none could be opened
+     */
+    private synchronized Segment roll(Segment full) {
+        if (current != full || roller == null) {
+            return current;
+        }
+        Segment next = takeSpare();
+        if (next == null) {
+            try {
+                next = openSegment();
+            } catch (IOException e) {
+                if (!failing) {
+                    log.error("Failed to open a new access log segment in {}, dropping records until one can be "
+                            + "opened: {}", directory, e.getMessage());
+                    failing = true;
+                }
+                spare = prepareSpare();
+                return null;
+            }
+        }
+        if (failing) {
+            log.info("Opened a new access log segment in {}, recording again", directory);
+            failing = false;
+        }
+        next.activate();
+        current = next;
+        roller.execute(full.buffer::force);
+        spare = prepareSpare();
+        return next;
+    }
+
+    private Segment takeSpare() {
+        try {
+            return spare.join();
+        } catch (CompletionException e) {
+            if (!failing) {
+                log.warn("Failed to map the next access log segment in {} ahead of time, opening it now: {}",
+                        directory, e.getCause().getMessage());
+            }
+            return null;
+        }
+    }
+
+    private CompletableFuture<Segment> prepareSpare() {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return openSegment();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, roller);
+    }
+
+    private Segment openSegment() throws IOException {
+        long sequence = nextSequence.getAndIncrement();
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(AccessLogFormat.segmentPath(directory, sequence),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+        buffer.putInt(AccessLogFormat.HEADER_MAGIC, AccessLogFormat.MAGIC);
+        buffer.putShort(AccessLogFormat.HEADER_VERSION, AccessLogFormat.VERSION);
+        buffer.putShort(AccessLogFormat.HEADER_RECORD_SIZE, (short) AccessLogFormat.RECORD_SIZE);
+        buffer.putLong(AccessLogFormat.HEADER_SEQUENCE, sequence);
+        return new Segment(buffer, segmentSize);
+    }
+
+    private void loadRoutes() throws IOException {
+        Path routes = directory.resolve(AccessLogFormat.ROUTES_FILE);
+        if (!Files.exists(routes)) {
+            return;
+        }
+        for (String line : Files.readAllLines(routes, StandardCharsets.UTF_8)) {
+            int tab = line.indexOf('\t');
+            if (tab > 0) {
+                int id = Integer.parseInt(line.substring(0, tab));
+                routeIds.put(line.substring(tab + 1), id);
+                nextRouteId = Math.max(nextRouteId, id + 1);
+            }
+        }
+    }
+
+    private long lastSequence() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.mapToLong(AccessLogFormat::sequenceOf).max().orElse(0);
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            loadRoutes();
+            nextSequence.set(lastSequence() + 1);
+            Segment first = openSegment();
+            first.activate();
+            current = first;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open the access log in " + directory.toAbsolutePath(), e);
+        }
+        roller = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "access-log-roller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        spare = prepareSpare();
+        running = true;
+    }
+
+    /**
+     * Waits for pending forces, then forces the current segment. A spare segment mapped but not yet used
+     * stays on disk without records.
+     */
+    @Override
+    public synchronized void stop() {
+        running = false;
+        Segment segment = current;
+        current = null;
+        ExecutorService executor = roller;
+        roller = null;
+        spare = null;
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (segment != null) {
+            segment.buffer.force();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Starts before and stops after the embedded web server, whose phase is {@code DEFAULT_PHASE - 2048},
+     * so requests completing during graceful shutdown are still recorded. Lifecycles sharing a phase are
+     * stopped in no defined order, hence the strictly lower phase.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 2048 - 1;
+    }
+
+    private static final class Segment {
+
+        private final MappedByteBuffer buffer;
+        private final AtomicInteger next = new AtomicInteger(AccessLogFormat.HEADER_SIZE);
+        private final int lastOffset;
+
+        private Segment(MappedByteBuffer buffer, int size) {
+            this.buffer = buffer;
+            this.lastOffset = size - AccessLogFormat.RECORD_SIZE;
+        }
+
+        /**
+         * Stamps the creation time when the segment becomes current, rather than when it was mapped.
+         */
+        private void activate() {
+            buffer.putLong(AccessLogFormat.HEADER_CREATED, System.currentTimeMillis());
+        }
+
+        /**
+         * @return the offset of a free record slot, or {@code -1} if the segment is full
+         */
+        private int claim() {
+            int offset = next.getAndAdd(AccessLogFormat.RECORD_SIZE);
+            return offset >= 0 && offset <= lastOffset ? offset : -1;
+        }
+
+        /**
+         * Writes the timestamp last with release semantics; a slot with a timestamp is complete.
+         */
+        private void write(int offset, long timestampMillis, int routeId, int status, long latencyMicros,
+                           long subjectHash, long requestBytes, long responseBytes) {
+            buffer.putLong(offset + AccessLogFormat.SUBJECT_HASH, subjectHash);
+            buffer.putLong(offset + AccessLogFormat.REQUEST_BYTES, requestBytes);
+            buffer.putLong(offset + AccessLogFormat.RESPONSE_BYTES, responseBytes);
+            int latency = (int) Math.min(latencyMicros, Integer.MAX_VALUE);
+            buffer.putInt(offset + AccessLogFormat.LATENCY_MICROS, latency);
+            buffer.putShort(offset + AccessLogFormat.ROUTE_ID, (short) routeId);
+            buffer.putShort(offset + AccessLogFormat.STATUS, (short) status);
+            LONGS.setRelease(buffer, offset + AccessLogFormat.TIMESTAMP, timestampMillis);
+        }
+    }
+}
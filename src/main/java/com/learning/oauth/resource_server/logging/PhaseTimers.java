@@ -0,0 +1,60 @@
+package com.learning.oauth.resource_server.logging;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the {@link PhaseTimings} of completed requests as Micrometer timers.
+ * <p>
+ * One {@code http.server.requests.phase} timer exists per route template and phase, tagged with
+ * {@code route} and {@code phase}. The timers of a route are registered on its first request and then
+ * looked up with a single map access. Requests that matched no handler share the route {@code UNKNOWN},
+ * keeping the number of timers bounded by the number of mappings.
+ * </p>
+ */
+public class PhaseTimers {
+
+    static final String TIMER_NAME = "http.server.requests.phase";
+    public static final String UNKNOWN_ROUTE = "UNKNOWN";
+
+    private static final RequestPhase[] PHASES = RequestPhase.values();
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer[]> timersByRoute = new ConcurrentHashMap<>();
+
+    public PhaseTimers(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Records every phase that ran during the request.
+     *
+     * @param route   the matched route template, or {@code null} if none matched
+     * @param timings the request's accumulated phase durations
+     */
+    public void record(String route, PhaseTimings timings) {
+        Timer[] timers = timersByRoute.computeIfAbsent(route != null ? route : UNKNOWN_ROUTE, this::register);
+        for (RequestPhase phase : PHASES) {
+            long nanos = timings.nanos(phase);
+            if (nanos > 0) {
+                timers[phase.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private Timer[] register(String route) {
+        Timer[] timers = new Timer[PHASES.length];
+        for (RequestPhase phase : PHASES) {
+            timers[phase.ordinal()] = Timer.builder(TIMER_NAME)
+                    .description("Time spent in one phase of an HTTP request")
+                    .tag("route", route)
+                    .tag("phase", phase.tag())
+                    .register(meterRegistry);
+        }
+        return timers;
+    }
+}
@@ -0,0 +1,29 @@
+package com.learning.oauth.resource_server.logging;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Delimits the handler and serialization phases of the current {@link PhaseTimings}.
+ */
+public class PhaseTimingInterceptor implements HandlerInterceptor {
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        PhaseTimings timings = PhaseTimings.current();
+        if (timings != null) {
+            timings.handlerStarted();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        PhaseTimings timings = PhaseTimings.current();
+        if (timings != null) {
+            timings.handlerCompleted();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.learning.oauth.resource_server.logging;
+
+/**
+ * Per-request accumulator of {@link RequestPhase} durations, bound to the processing thread.
+ * <p>
+ * The instance is opened by the phase-timing filter before Spring Security runs, so code anywhere on the
+ * request thread (the JWT decoder, the authority converter, authorization managers) can report a phase
+ * with {@link #record(RequestPhase, long)} without any reference to the request. Outside an open request
+ * (background threads, tests), recording is a no-op.
+ * </p>
+ *
+ * <pre>
+ * long start = System.nanoTime();
+ * try {
+ *     return delegate.decode(token);
+ * } finally {
+ *     PhaseTimings.record(RequestPhase.JWT_DECODE, start);
+ * }
+ * </pre>
+ */
+public final class PhaseTimings {
+
+    private static final ThreadLocal<PhaseTimings> CURRENT = new ThreadLocal<>();
+    private static final RequestPhase[] PHASES = RequestPhase.values();
+
+    private final long[] nanos = new long[PHASES.length];
+    private long handlerStart;
+    private long bodyStart;
+
+    private PhaseTimings() {
+    }
+
+    /**
+     * Binds a fresh accumulator to the current thread.
+     */
+    public static PhaseTimings open() {
+        PhaseTimings timings = new PhaseTimings();
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    /**
+     * Unbinds the accumulator from the current thread.
+     */
+    public static void close() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return the accumulator of the request being processed on this thread, or {@code null}
+     */
+    public static PhaseTimings current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Adds the time elapsed since {@code startNanos} to a phase of the current request, if any.
+     *
+     * @param phase      the phase that just ended
+     * @param startNanos the {@link System#nanoTime()} at which it started
+     */
+    public static void record(RequestPhase phase, long startNanos) {
+        PhaseTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.nanos[phase.ordinal()] += System.nanoTime() - startNanos;
+        }
+    }
+
+    /**
+     * Marks the start of the handler phase.
+     */
+    public void handlerStarted() {
+        handlerStart = System.nanoTime();
+        bodyStart = 0;
+    }
+
+    /**
+     * Marks the first access to the response body: the handler phase ends, serialization starts.
+     * Later calls are ignored.
+     */
+    public void bodyStarted() {
+        if (handlerStart != 0 && bodyStart == 0) {
+            bodyStart = System.nanoTime();
+            nanos[RequestPhase.HANDLER.ordinal()] += bodyStart - handlerStart;
+        }
+    }
+
+    /**
+     * Marks the end of request handling, closing whichever of handler or serialization is running.
+     */
+    public void handlerCompleted() {
+        if (handlerStart == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (bodyStart != 0) {
+            nanos[RequestPhase.SERIALIZATION.ordinal()] += now - bodyStart;
+        } else {
+            nanos[RequestPhase.HANDLER.ordinal()] += now - handlerStart;
+        }
+        handlerStart = 0;
+        bodyStart = 0;
+    }
+
+    /**
+     * @return the accumulated duration of a phase in nanoseconds, {@code 0} if it did not run
+     */
+    public long nanos(RequestPhase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    /**
+     * @return the phases recorded so far as a {@code Server-Timing} header value, e.g.
+     * {@code jwt;dur=0.412, authorities;dur=0.021, authz;dur=0.008}
+     */
+    public String serverTiming() {
+        StringBuilder header = new StringBuilder(96);
+        for (RequestPhase phase : PHASES) {
+            long phaseNanos = nanos[phase.ordinal()];
+            if (phaseNanos > 0) {
+                if (!header.isEmpty()) {
+                    header.append(", ");
+                }
+                long micros = phaseNanos / 1_000;
+                header.append(phase.tag()).append(";dur=").append(micros / 1_000).append('.');
+                long fraction = micros % 1_000;
+                if (fraction < 100) {
+                    header.append('0');
+                }
+                if (fraction < 10) {
+                    header.append('0');
+                }
+                header.append(fraction);
+            }
+        }
+        return header.toString();
+    }
+}
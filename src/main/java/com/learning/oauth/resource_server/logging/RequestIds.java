@@ -0,0 +1,110 @@
+package com.learning.oauth.resource_server.logging;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Resolves the request/trace ID of an exchange.
+ * <p>
+ * {@code UUID.randomUUID()} draws from a shared {@code SecureRandom}, which becomes a contention point on
+ * many cores, and the filter only kept 8 characters of it. IDs are resolved in this order instead:
+ * </p>
+ * <ol>
+ *     <li>The trace ID of a valid W3C {@code traceparent} header, so log lines join the caller's trace</li>
+ *     <li>An incoming {@code X-Request-Id} made of at most 64 safe characters ({@code [A-Za-z0-9._-]})</li>
+ *     <li>16 hex characters from the calling thread's {@link ThreadLocalRandom}, encoded without
+ *         intermediate objects</li>
+ * </ol>
+ * <p>
+ * Generated IDs are unique enough for correlating log lines, not for security purposes.
+ * </p>
+ *
+ * @see RequestLoggingProperties.RequestId
+ */
+public class RequestIds {
+
+    public static final String TRACEPARENT_HEADER = "traceparent";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final int MAX_INCOMING_LENGTH = 64;
+
+    private final String requestIdHeader;
+    private final boolean trustIncoming;
+
+    public RequestIds(RequestLoggingProperties.RequestId properties) {
+        this.requestIdHeader = properties.getHeader();
+        this.trustIncoming = properties.isTrustIncoming();
+    }
+
+    /**
+     * @return the header carrying the request ID, both incoming and in the response
+     */
+    public String getHeader() {
+        return requestIdHeader;
+    }
+
+    /**
+     * @return the ID of this request, taken from its headers when trusted and well-formed, otherwise generated
+     */
+    public String resolve(HttpServletRequest request) {
+        if (trustIncoming) {
+            String traceId = traceIdOf(request.getHeader(TRACEPARENT_HEADER));
+            if (traceId != null) {
+                return traceId;
+            }
+            String incoming = request.getHeader(requestIdHeader);
+            if (isSafe(incoming)) {
+                return incoming;
+            }
+        }
+        return generate();
+    }
+
+    /**
+     * @return a new random 16-character hex ID
+     */
+    public static String generate() {
+        long bits = ThreadLocalRandom.current().nextLong();
+        char[] id = new char[16];
+        for (int i = 15; i >= 0; i--) {
+            id[i] = HEX[(int) (bits & 0xF)];
+            bits >>>= 4;
+        }
+        return new String(id);
+    }
+
+    /**
+     * Extracts the trace ID from {@code version-traceid-parentid-flags}, e.g.
+     * {@code 00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01}.
+     */
+    static String traceIdOf(String traceparent) {
+        if (traceparent == null || traceparent.length() < 55
+                || traceparent.charAt(2) != '-' || traceparent.charAt(35) != '-' || traceparent.charAt(52) != '-') {
+            return null;
+        }
+        boolean allZero = true;
+        for (int i = 3; i < 35; i++) {
+            char c = traceparent.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return null;
+            }
+            allZero &= c == '0';
+        }
+        return allZero ? null : traceparent.substring(3, 35);
+    }
+
+    private static boolean isSafe(String id) {
+        if (id == null || id.isEmpty() || id.length() > MAX_INCOMING_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
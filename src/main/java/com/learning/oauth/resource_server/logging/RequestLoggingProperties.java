@@ -0,0 +1,298 @@
+package com.learning.oauth.resource_server.logging;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Properties of the request/response logging filter, bound from {@code application.request-logging.*}.
+ *
+ * <pre>
+ * application:
+ *   request-logging:
+ *     format: text
+ *     request-id:
+ *       header: X-Request-Id
+ *       trust-incoming: true
+ *       mdc-key: requestId
+ *     headers:
+ *       allowlist: []
+ *       redact: [cookie, set-cookie, x-api-key]
+ *       mask-jwt: [authorization, proxy-authorization]
+ *     capture:
+ *       default-mode: body
+ *       skip-probes: true
+ *       routes:
+ *         - pattern: /admin/performance/**
+ *           mode: headers
+ *       content-types:
+ *         - type: image/*
+ *           mode: headers
+ *     phases:
+ *       enabled: true
+ *       server-timing-header: false
+ *     async:
+ *       enabled: true
+ *       capacity: 8192
+ *       overflow-policy: drop
+ *       sample-threshold: 0.75
+ *       sample-rate: 10
+ *       block-timeout: 10ms
+ *     sampling:
+ *       rate: 1.0
+ *       routes:
+ *         - pattern: /users/**
+ *           rate: 0.1
+ *       tail:
+ *         enabled: true
+ *         min-status: 400
+ *         slow-threshold: 1s
+ *     access-log:
+ *       enabled: false
+ *       directory: logs/access
+ *       segment-size: 64MB
+ * </pre>
+ */
+@Data
+@Validated
+@ConfigurationProperties(prefix = "application.request-logging")
+public class RequestLoggingProperties {
+
+    /** Output format of logged exchanges. */
+    private Format format = Format.TEXT;
+
+    private RequestId requestId = new RequestId();
+
+    private Headers headers = new Headers();
+
+    private Capture capture = new Capture();
+
+    private Phases phases = new Phases();
+
+    @Valid
+    private Async async = new Async();
+
+    private Sampling sampling = new Sampling();
+
+    private AccessLog accessLog = new AccessLog();
+
+    /**
+     * Correlation ID assigned to each exchange.
+     */
+    @Data
+    public static class RequestId {
+
+        /** Header an incoming ID is read from and the resolved ID is returned in. */
+        private String header = "X-Request-Id";
+
+        /** Whether a well-formed incoming {@code traceparent} or request ID header is reused. */
+        private boolean trustIncoming = true;
+
+        /** MDC key the ID is exposed under while the request is processed. */
+        private String mdcKey = "requestId";
+    }
+
+    /**
+     * Header logging policy, see {@link HeaderPolicy}. Names are case-insensitive.
+     */
+    @Data
+    public static class Headers {
+
+        /** Headers logged verbatim; when not empty, headers not named in any list are dropped. */
+        private List<String> allowlist = new ArrayList<>();
+
+        /** Headers whose value is replaced by {@code [REDACTED]}. */
+        private List<String> redact = new ArrayList<>(List.of("cookie", "set-cookie", "x-api-key"));
+
+        /** Headers carrying bearer JWTs, logged with the token's {@code kid} and {@code sub} only. */
+        private List<String> maskJwt = new ArrayList<>(List.of("authorization", "proxy-authorization"));
+    }
+
+    /**
+     * What is captured per route and content type, see {@link CapturePolicy}.
+     */
+    @Data
+    public static class Capture {
+
+        /** Mode of exchanges matching no route rule. */
+        private CaptureMode defaultMode = CaptureMode.BODY;
+
+        /** Whether Prometheus scrapes and health checks are skipped ahead of all route rules. */
+        private boolean skipProbes = true;
+
+        /** Route rules; the first matching entry wins. */
+        private List<RouteCapture> routes = new ArrayList<>();
+
+        /** Content-type rules, applied to the request and response content types; the first match wins. */
+        private List<ContentTypeCapture> contentTypes = new ArrayList<>();
+    }
+
+    /**
+     * Capture mode of one route.
+     */
+    @Data
+    public static class RouteCapture {
+
+        /** HTTP method, or {@code null} for any method. */
+        private HttpMethod method;
+
+        /** Path pattern relative to the context path, e.g. {@code /admin/performance/**}. */
+        private String pattern;
+
+        private CaptureMode mode = CaptureMode.BODY;
+    }
+
+    /**
+     * Capture mode of one content type; it can only narrow the route's mode.
+     */
+    @Data
+    public static class ContentTypeCapture {
+
+        /** Media type, possibly with wildcards, e.g. {@code image/*}. */
+        private String type;
+
+        private CaptureMode mode = CaptureMode.HEADERS;
+    }
+
+    /**
+     * Per-phase latency breakdown of each request.
+     */
+    @Data
+    public static class Phases {
+
+        /** Whether phase durations are recorded and published as {@code http.server.requests.phase} timers. */
+        private boolean enabled = true;
+
+        /** Whether the phases completed before the response is committed are sent in a {@code Server-Timing} header. */
+        private boolean serverTimingHeader = false;
+    }
+
+    /**
+     * Hand-off of captured exchanges to a background formatter thread.
+     */
+    @Data
+    public static class Async {
+
+        /** Whether exchanges are formatted and written off the servlet thread. */
+        private boolean enabled = true;
+
+        /** Ring buffer capacity in events; rounded up to a power of two. */
+        private int capacity = 8192;
+
+        /** What to do with a new event when the consumer cannot keep up. */
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+        /** Fill ratio above which the {@code sample} policy starts thinning out events. */
+        private double sampleThreshold = 0.75;
+
+        /** Under the {@code sample} policy, one in this many events is kept above the threshold. */
+        @Min(1)
+        private int sampleRate = 10;
+
+        /** Under the {@code block} policy, how long a servlet thread waits for space before dropping. */
+        private Duration blockTimeout = Duration.ofMillis(10);
+    }
+
+    /**
+     * Which exchanges are logged with their bodies.
+     * <p>
+     * The head decision (global {@code rate} or the first matching {@code routes} entry) is taken before
+     * the request is wrapped, so exchanges that are not sampled are never captured. The tail rule then
+     * still logs errors and slow exchanges that were not sampled, without their bodies.
+     * </p>
+     */
+    @Data
+    public static class Sampling {
+
+        /** Fraction of exchanges logged with bodies, between 0.0 and 1.0. */
+        private double rate = 1.0;
+
+        /** Per-route rates overriding {@code rate}; the first matching entry wins. */
+        private List<RouteRate> routes = new ArrayList<>();
+
+        private Tail tail = new Tail();
+    }
+
+    /**
+     * Sampling rate of one route.
+     */
+    @Data
+    public static class RouteRate {
+
+        /** HTTP method, or {@code null} for any method. */
+        private HttpMethod method;
+
+        /** Path pattern relative to the context path, e.g. {@code /users/**}. */
+        private String pattern;
+
+        /** Fraction of matching exchanges logged with bodies. */
+        private double rate = 1.0;
+    }
+
+    /**
+     * Exchanges that are always logged, even when not head-sampled.
+     */
+    @Data
+    public static class Tail {
+
+        /** Whether errors and slow exchanges are logged regardless of the head decision. */
+        private boolean enabled = true;
+
+        /** Lowest response status considered an error. */
+        private int minStatus = 400;
+
+        /** Exchanges taking at least this long are always logged. */
+        private Duration slowThreshold = Duration.ofSeconds(1);
+    }
+
+    /**
+     * Binary audit log of every request, see {@link MappedAccessLog}.
+     */
+    @Data
+    public static class AccessLog {
+
+        /** Whether every request is recorded, independently of capture mode and sampling. */
+        private boolean enabled = false;
+
+        /** Directory holding the segment files and the route dictionary. */
+        private String directory = "logs/access";
+
+        /** Size of each memory-mapped segment; a new segment is started when the current one is full. */
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+    }
+
+    /**
+     * Output format of the request logging filter.
+     */
+    public enum Format {
+
+        /** Boxed, human-readable REQUEST / RESPONSE blocks. */
+        TEXT,
+
+        /** One single-line JSON event per exchange, with JSON bodies embedded verbatim. */
+        JSON
+    }
+
+    /**
+     * Overflow policy of the asynchronous log pipeline.
+     */
+    public enum OverflowPolicy {
+
+        /** Drop the new event when the buffer is full. */
+        DROP,
+
+        /** Keep one in {@code sample-rate} events once the buffer is above {@code sample-threshold}; drop when full. */
+        SAMPLE,
+
+        /** Wait up to {@code block-timeout} for space, then drop. */
+        BLOCK
+    }
+}
@@ -0,0 +1,38 @@
+package com.learning.oauth.resource_server.logging;
+
+/**
+ * Phases of an exchange whose durations are recorded in {@link PhaseTimings}.
+ */
+public enum RequestPhase {
+
+    /** Parsing and verifying the bearer token. */
+    JWT_DECODE("jwt"),
+
+    /** Converting JWT claims into granted authorities. */
+    AUTHORITIES("authorities"),
+
+    /** Evaluating the request authorization rules. */
+    AUTHORIZATION("authz"),
+
+    /** Controller execution, up to the first byte of the response body. */
+    HANDLER("handler"),
+
+    /** Writing the response body, from its first byte until the handler completes. */
+    SERIALIZATION("serialization"),
+
+    /** Capturing the exchange and handing it to the request log sink. */
+    LOG_FORMATTING("log");
+
+    private final String tag;
+
+    RequestPhase(String tag) {
+        this.tag = tag;
+    }
+
+    /**
+     * @return the short name used as metric tag and {@code Server-Timing} metric name
+     */
+    public String tag() {
+        return tag;
+    }
+}
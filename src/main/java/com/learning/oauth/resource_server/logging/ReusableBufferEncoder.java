@@ -0,0 +1,152 @@
+package com.learning.oauth.resource_server.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import ch.qos.logback.core.CoreConstants;
+import ch.qos.logback.core.encoder.EncoderBase;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Logback encoder for the {@code prod} logging profile that formats into buffers reused across events.
+ * <p>
+ * {@code PatternLayoutEncoder} builds a new {@code String} per event from a chain of converters, then
+ * encodes it with {@code String.getBytes}, and {@code %M:%L} additionally walks the stack of the calling
+ * thread. This encoder writes a fixed layout, equivalent to
+ * {@code %d{yyyy-MM-dd HH:mm:ss.SSS} %-5level [%thread] [%X{requestId}] %logger : %msg%n%throwable},
+ * into a reused {@link StringBuilder} and encodes it with a reused {@link CharsetEncoder} into a reused
+ * byte buffer. The date part is formatted once per second. The only per-event allocation left is the
+ * exact-size array Logback's {@code Encoder} contract returns.
+ * </p>
+ * <p>
+ * Calls are serialized; behind an {@code AsyncAppender} there is a single caller, the appender's worker
+ * thread, so the lock is never contended.
+ * </p>
+ *
+ * <pre>
+ * &lt;encoder class="com.learning.oauth.resource_server.logging.ReusableBufferEncoder"&gt;
+ *     &lt;mdcKey&gt;requestId&lt;/mdcKey&gt;
+ * &lt;/encoder&gt;
+ * </pre>
+ */
+public class ReusableBufferEncoder extends EncoderBase<ILoggingEvent> {
+
+    private static final DateTimeFormatter SECONDS = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int INITIAL_CAPACITY = 512;
+
+    private String mdcKey = "requestId";
+    private Charset charset = StandardCharsets.UTF_8;
+    private ZoneId zone = ZoneId.systemDefault();
+
+    private final StringBuilder text = new StringBuilder(INITIAL_CAPACITY);
+    private char[] chars = new char[INITIAL_CAPACITY];
+    private CharBuffer charBuffer = CharBuffer.wrap(chars);
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+    private ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
+    private CharsetEncoder encoder;
+    private long cachedSecond = Long.MIN_VALUE;
+    private String cachedSecondText;
+
+    public void setMdcKey(String mdcKey) {
+        this.mdcKey = mdcKey;
+    }
+
+    public void setCharset(Charset charset) {
+        this.charset = charset;
+    }
+
+    public void setTimeZone(String timeZone) {
+        this.zone = ZoneId.of(timeZone);
+    }
+
+    @Override
+    public void start() {
+        encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        super.start();
+    }
+
+    @Override
+    public byte[] headerBytes() {
+        return null;
+    }
+
+    @Override
+    public byte[] footerBytes() {
+        return null;
+    }
+
+    @Override
+    public synchronized byte[] encode(ILoggingEvent event) {
+        text.setLength(0);
+        appendTimestamp(event.getTimeStamp());
+        text.append(' ');
+        String level = event.getLevel().toString();
+        text.append(level);
+        for (int i = level.length(); i < 5; i++) {
+            text.append(' ');
+        }
+        text.append(" [").append(event.getThreadName()).append("] [");
+        Map<String, String> mdc = event.getMDCPropertyMap();
+        String requestId = mdc != null ? mdc.get(mdcKey) : null;
+        if (requestId != null) {
+            text.append(requestId);
+        }
+        text.append("] ").append(event.getLoggerName()).append(" : ").append(event.getFormattedMessage());
+        text.append(CoreConstants.LINE_SEPARATOR);
+        IThrowableProxy throwable = event.getThrowableProxy();
+        if (throwable != null) {
+            text.append(ThrowableProxyUtil.asString(throwable));
+        }
+        return encodeText();
+    }
+
+    private void appendTimestamp(long millis) {
+        long second = Math.floorDiv(millis, 1000);
+        if (second != cachedSecond) {
+            cachedSecondText = SECONDS.format(Instant.ofEpochSecond(second).atZone(zone));
+            cachedSecond = second;
+        }
+        int fraction = Math.floorMod(millis, 1000);
+        text.append(cachedSecondText).append('.')
+                .append((char) ('0' + fraction / 100))
+                .append((char) ('0' + fraction / 10 % 10))
+                .append((char) ('0' + fraction % 10));
+    }
+
+    private byte[] encodeText() {
+        int length = text.length();
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+            charBuffer = CharBuffer.wrap(chars);
+        }
+        text.getChars(0, length, chars, 0);
+        while (true) {
+            charBuffer.clear().limit(length);
+            byteBuffer.clear();
+            encoder.reset();
+            CoderResult result = encoder.encode(charBuffer, byteBuffer, true);
+            if (!result.isOverflow()) {
+                result = encoder.flush(byteBuffer);
+            }
+            if (!result.isOverflow()) {
+                return Arrays.copyOf(bytes, byteBuffer.position());
+            }
+            bytes = new byte[bytes.length * 2];
+            byteBuffer = ByteBuffer.wrap(bytes);
+        }
+    }
+}
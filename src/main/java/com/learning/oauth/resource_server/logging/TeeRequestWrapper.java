@@ -0,0 +1,157 @@
+package com.learning.oauth.resource_server.logging;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Request wrapper that remembers the first {@code limit} bytes the application reads from the body.
+ * <p>
+ * Unlike {@code ContentCachingRequestWrapper}, nothing is buffered ahead of the application: bytes are
+ * copied aside only as they are consumed, and never more than {@code limit} of them. Form posts consumed
+ * through {@code getParameter*} are re-encoded from the parameter map when the body is requested, as the
+ * Spring wrapper does.
+ * </p>
+ */
+public class TeeRequestWrapper extends HttpServletRequestWrapper {
+
+    private final BoundedByteCapture capture;
+    private final int limit;
+    private ServletInputStream inputStream;
+    private BufferedReader reader;
+
+    /**
+     * @param request the request to wrap
+     * @param limit   maximum number of body bytes kept for logging
+     */
+    public TeeRequestWrapper(HttpServletRequest request, int limit) {
+        super(request);
+        this.limit = limit;
+        this.capture = new BoundedByteCapture(limit);
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        if (inputStream == null) {
+            inputStream = new TeeInputStream(super.getInputStream());
+        }
+        return inputStream;
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        if (reader == null) {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.ISO_8859_1;
+            reader = new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+        return reader;
+    }
+
+    /**
+     * @return at most {@code limit} bytes of the request body
+     */
+    public byte[] getCapturedBody() {
+        if (capture.total() == 0 && isFormPost()) {
+            return formBody();
+        }
+        return capture.toByteArray();
+    }
+
+    /**
+     * @return the number of body bytes the application read, which may exceed the captured length
+     */
+    public long getCapturedLength() {
+        return capture.total();
+    }
+
+    private boolean isFormPost() {
+        String contentType = getContentType();
+        return contentType != null && contentType.startsWith(MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+                && "POST".equals(getMethod());
+    }
+
+    private byte[] formBody() {
+        String encoding = getCharacterEncoding();
+        Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+        StringBuilder body = new StringBuilder();
+        for (Map.Entry<String, String[]> parameter : getParameterMap().entrySet()) {
+            for (String value : parameter.getValue()) {
+                if (!body.isEmpty()) {
+                    body.append('&');
+                }
+                body.append(URLEncoder.encode(parameter.getKey(), charset));
+                if (value != null) {
+                    body.append('=').append(URLEncoder.encode(value, charset));
+                }
+                if (body.length() >= limit) {
+                    break;
+                }
+            }
+        }
+        byte[] bytes = body.toString().getBytes(charset);
+        return bytes.length > limit ? Arrays.copyOf(bytes, limit) : bytes;
+    }
+
+    private final class TeeInputStream extends ServletInputStream {
+
+        private final ServletInputStream delegate;
+
+        private TeeInputStream(ServletInputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = delegate.read();
+            if (b >= 0) {
+                capture.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = delegate.read(b, off, len);
+            if (read > 0) {
+                capture.write(b, off, read);
+            }
+            return read;
+        }
+
+        @Override
+        public int readLine(byte[] b, int off, int len) throws IOException {
+            int read = delegate.readLine(b, off, len);
+            if (read > 0) {
+                capture.write(b, off, read);
+            }
+            return read;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return delegate.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            delegate.setReadListener(readListener);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.learning.oauth.resource_server.logging;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Predicate;
+
+/**
+ * Response wrapper that streams the body straight to the client while keeping its first {@code limit} bytes.
+ * <p>
+ * {@code ContentCachingResponseWrapper} holds the entire body on the heap until
+ * {@code copyBodyToResponse()}, which doubles memory for large payloads and delays the first byte until
+ * the handler has finished. This wrapper writes every byte through to the real output stream as it is
+ * produced (a "tee") and only copies up to {@code limit} bytes aside for logging.
+ * </p>
+ * <p>
+ * {@link #flushCapture()} must be called once the handler is done, so characters still sitting in a
+ * writer obtained through {@link #getWriter()} reach the client.
+ * </p>
+ * <p>
+ * As required by the servlet API, only one of {@link #getOutputStream()} and {@link #getWriter()} may be
+ * used, and {@link #reset()} / {@link #resetBuffer()} discard the captured bytes along with the
+ * response buffer.
+ * </p>
+ */
+public class TeeResponseWrapper extends HttpServletResponseWrapper {
+
+    private final BoundedByteCapture capture;
+    private final Predicate<String> capturableContentType;
+    private ServletOutputStream outputStream;
+    private boolean usingOutputStream;
+    private PrintWriter writer;
+    private boolean draining;
+
+    /**
+     * @param response the response to wrap
+     * @param limit    maximum number of body bytes kept for logging
+     */
+    public TeeResponseWrapper(HttpServletResponse response, int limit) {
+        this(response, limit, contentType -> true);
+    }
+
+    /**
+     * @param response              the response to wrap
+     * @param limit                 maximum number of body bytes kept for logging
+     * @param capturableContentType decides, when the body is first accessed, whether a body of the
+     *                              response's content type (possibly {@code null}) is captured at all
+     */
+    public TeeResponseWrapper(HttpServletResponse response, int limit, Predicate<String> capturableContentType) {
+        super(response);
+        this.capture = new BoundedByteCapture(limit);
+        this.capturableContentType = capturableContentType;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (writer != null) {
+            throw new IllegalStateException("getWriter() has already been called for this response");
+        }
+        usingOutputStream = true;
+        return stream();
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            if (usingOutputStream) {
+                throw new IllegalStateException("getOutputStream() has already been called for this response");
+            }
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.ISO_8859_1;
+            writer = new PrintWriter(new OutputStreamWriter(new WriterOutput(stream()), charset));
+        }
+        return writer;
+    }
+
+    private ServletOutputStream stream() throws IOException {
+        if (outputStream == null) {
+            ServletOutputStream delegate = super.getOutputStream();
+            outputStream = capturableContentType.test(getContentType()) ? new TeeOutputStream(delegate) : delegate;
+        }
+        return outputStream;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        flushCapture();
+        super.flushBuffer();
+    }
+
+    /**
+     * Pending writer characters are first moved into the response buffer, so the reset discards them too.
+     * The container forgets which of stream and writer was used, so both are handed out anew afterwards,
+     * and capturing is decided again for the new content type.
+     */
+    @Override
+    public void reset() {
+        drainWriter();
+        super.reset();
+        capture.reset();
+        outputStream = null;
+        usingOutputStream = false;
+        writer = null;
+    }
+
+    /**
+     * Pending writer characters are first moved into the response buffer, so the reset discards them too.
+     */
+    @Override
+    public void resetBuffer() {
+        drainWriter();
+        super.resetBuffer();
+        capture.reset();
+    }
+
+    /**
+     * Flushes characters buffered in the writer, if one was handed out.
+     */
+    public void flushCapture() {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    /**
+     * Moves characters buffered in the writer into the response buffer without flushing the servlet output
+     * stream, which would commit the response.
+     */
+    private void drainWriter() {
+        if (writer != null) {
+            draining = true;
+            try {
+                writer.flush();
+            } finally {
+                draining = false;
+            }
+        }
+    }
+
+    /**
+     * @return at most {@code limit} bytes of the response body
+     */
+    public byte[] getCapturedBody() {
+        return capture.toByteArray();
+    }
+
+    /**
+     * @return the number of body bytes written, which may exceed the captured length
+     */
+    public long getCapturedLength() {
+        return capture.total();
+    }
+
+    /**
+     * Target of the writer's encoder; passes flushes on unless the writer is only being drained.
+     */
+    private final class WriterOutput extends OutputStream {
+
+        private final OutputStream delegate;
+
+        private WriterOutput(OutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (!draining) {
+                delegate.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+
+    private final class TeeOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+
+        private TeeOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            capture.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            capture.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.learning.oauth.resource_server.logging;
+
+import org.slf4j.Logger;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Writes each exchange as the boxed, human-readable REQUEST / RESPONSE blocks at {@code INFO}.
+ */
+public class TextExchangeLogSink implements ExchangeLogSink {
+
+    private final Logger log;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @param log the logger the blocks are written to
+     */
+    public TextExchangeLogSink(Logger log) {
+        this.log = log;
+        this.objectMapper = new ObjectMapper();
+    }
+
+    @Override
+    public void accept(ExchangeLogEvent event) {
+        if (log.isInfoEnabled()) {
+            logRequest(event);
+            logResponse(event);
+        }
+    }
+
+    private void logRequest(ExchangeLogEvent event) {
+        StringBuilder msg = new StringBuilder();
+        String timestamp = event.timestamp();
+        String logId = event.logId();
+
+        msg.append("\n╔═══════════════════════════ REQUEST START (ID: ").append(logId).append(") ═══════════════════════════╗\n");
+        msg.append(String.format("║ %-18s: %s\n", "Timestamp", timestamp));
+        msg.append(String.format("║ %-18s: %s\n", "Method", event.method()));
+        msg.append(String.format("║ %-18s: %s\n", "URI", event.uri()));
+        if (event.queryString() != null) {
+            msg.append(String.format("║ %-18s: %s\n", "QueryString", event.queryString()));
+        }
+        msg.append(String.format("║ %-18s: %s\n", "Client IP", event.clientIp()));
+        appendHeaders(msg, event.requestHeaders());
+        appendBody(msg, event.requestBody(), event.requestBodyLength(), event.requestEncoding());
+        msg.append(String.format("║ %-18s: %d ms\n", "Processing Time", event.timeTakenMillis()));
+        msg.append("╚════════════════════════════ REQUEST END (ID: ").append(logId).append(") ═════════════════════════════╝"); // No newline at the very end
+        log.info(msg.toString());
+    }
+
+    private void logResponse(ExchangeLogEvent event) {
+        StringBuilder msg = new StringBuilder();
+        String timestamp = event.timestamp();
+        String logId = event.logId();
+
+        msg.append("\n╔═══════════════════════════ RESPONSE START (ID: ").append(logId).append(") ══════════════════════════╗\n");
+        msg.append(String.format("║ %-18s: %s\n", "Timestamp", timestamp));
+        msg.append(String.format("║ %-18s: %d\n", "Status", event.status()));
+        appendHeaders(msg, event.responseHeaders());
+        appendBody(msg, event.responseBody(), event.responseBodyLength(), event.responseEncoding());
+        msg.append("╚═══════════════════════════ RESPONSE END (ID: ").append(logId).append(") ══════════════════════════╝"); // No newline at the very end
+        log.info(msg.toString());
+    }
+
+    private void appendHeaders(StringBuilder msg, List<ExchangeLogEvent.Header> headers) {
+        msg.append("║ Headers           :\n");
+        if (headers.isEmpty()) {
+            msg.append("║                     [NONE]\n");
+        } else {
+            for (ExchangeLogEvent.Header header : headers) {
+                msg.append(String.format("║   %-15s: %s\n", header.name(), header.value()));
+            }
+        }
+    }
+
+    private void appendBody(StringBuilder msg, byte[] content, long fullLength, String characterEncoding) {
+        if (content.length > 0) {
+            String contentString = getContentString(content, characterEncoding);
+            String payload = content.length < fullLength
+                    ? contentString + "... [TRUNCATED]"
+                    : formatPayload(contentString);
+            msg.append("║ Body              :\n").append(indentMultiLine(payload, "║   ")).append("\n");
+        } else {
+            msg.append(String.format("║ %-18s: %s\n", "Body", "[EMPTY]"));
+        }
+    }
+
+    private String getContentString(byte[] content, String characterEncoding) {
+        if (content == null || content.length == 0) {
+            return "";
+        }
+        try {
+            return new String(content, characterEncoding != null ? characterEncoding : StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            log.warn("Failed to parse payload with encoding '{}', falling back to UTF-8: {}", characterEncoding, e.getMessage());
+            return new String(content, StandardCharsets.UTF_8);
+        }
+    }
+
+    private String formatPayload(String payload) {
+        if (payload == null || payload.isEmpty()) {
+            return "[EMPTY BODY]";
+        }
+        String trimmedPayload = payload.trim();
+        if (trimmedPayload.startsWith("{") || trimmedPayload.startsWith("[")) {
+            try {
+                Object json = objectMapper.readValue(payload, Object.class);
+                return objectMapper.writeValueAsString(json); // Already pretty-printed by ObjectMapper config
+            } catch (Exception e) {
+                log.warn("Attempted to pretty print JSON but failed (payload might not be valid JSON or too complex). Error: {}. Logging as is (truncated).", e.getMessage());
+                // Fall through to truncate if not valid JSON
+            }
+        }
+        return payload;
+    }
+
+    private String indentMultiLine(String text, String indentPrefix) {
+        if (text == null || text.isEmpty() || text.equals("[EMPTY BODY]")) {
+            return indentPrefix + text; // Avoid adding prefix to an already prefixed [EMPTY BODY]
+        }
+        return text.lines()
+                .map(line -> indentPrefix + line)
+                .collect(Collectors.joining("\n"));
+    }
+}
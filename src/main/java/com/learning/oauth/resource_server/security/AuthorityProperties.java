@@ -0,0 +1,68 @@
+package com.learning.oauth.resource_server.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Properties for mapping Keycloak roles to Spring Security authorities, bound from
+ * {@code application.security.authorities.*}.
+ *
+ * <pre>
+ * application:
+ *   security:
+ *     authorities:
+ *       known-roles: [developer, offline_access, uma_authorization]
+ *       maximum-size: 1024
+ *       bitset-enabled: true
+ *       client-ids: [resource-server]
+ *       hierarchy:
+ *         admin: [developer]
+ *         "[resource-server:auditor]": [resource-server:viewer]
+ *       role-set-cache:
+ *         enabled: true
+ *         maximum-size: 256
+ * </pre>
+ */
+@Data
+@ConfigurationProperties(prefix = "application.security.authorities")
+public class AuthorityProperties {
+
+    /** Roles whose authorities are created and interned at startup. */
+    private List<String> knownRoles = new ArrayList<>();
+
+    /** Upper bound on the number of interned authorities, protecting against unbounded role names. */
+    private int maximumSize = 1024;
+
+    /** Whether known roles are additionally encoded as a {@link RoleBitset} for constant-time role checks. */
+    private boolean bitsetEnabled = true;
+
+    /** Clients whose {@code resource_access.<client>.roles} are mapped in addition to the realm roles. */
+    private List<String> clientIds = new ArrayList<>();
+
+    /**
+     * Composite roles: each role maps to the roles it directly implies. Client roles are named
+     * {@code <client>:<role>}; as keys they must be bracketed, e.g. {@code "[resource-server:auditor]"},
+     * since the binder drops the {@code :} from unbracketed map keys.
+     */
+    private Map<String, List<String>> hierarchy = new LinkedHashMap<>();
+
+    private RoleSetCache roleSetCache = new RoleSetCache();
+
+    /**
+     * Memoization of whole role lists to shared authority collections.
+     */
+    @Data
+    public static class RoleSetCache {
+
+        /** Whether identical role lists share one authority collection. */
+        private boolean enabled = true;
+
+        /** Maximum number of distinct role lists remembered. */
+        private long maximumSize = 256;
+    }
+}
@@ -0,0 +1,64 @@
+package com.learning.oauth.resource_server.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Concurrent registry of canonical {@link GrantedAuthority} instances, one per Keycloak role name.
+ * <p>
+ * Converting a token's roles used to allocate a {@code "ROLE_" + roleName} string and a new
+ * {@link SimpleGrantedAuthority} for every role on every request. The registry creates each authority
+ * once and hands out the same instance afterwards, so the lookup on the hot path is a single
+ * {@link ConcurrentHashMap#get(Object)} without allocation.
+ * </p>
+ * <p>
+ * Roles listed under {@code application.security.authorities.known-roles} are registered at startup.
+ * Other roles are registered the first time they are seen, up to {@code maximum-size} entries; beyond
+ * that, authorities are still created correctly but are no longer interned.
+ * </p>
+ *
+ * @see AuthorityProperties
+ */
+public class AuthorityRegistry {
+
+    public static final String ROLE_PREFIX = "ROLE_";
+
+    private final ConcurrentMap<String, GrantedAuthority> authorities = new ConcurrentHashMap<>();
+    private final int maximumSize;
+
+    public AuthorityRegistry(AuthorityProperties properties) {
+        this.maximumSize = properties.getMaximumSize();
+        properties.getKnownRoles().forEach(this::intern);
+    }
+
+    /**
+     * Returns the canonical {@code ROLE_<roleName>} authority for a Keycloak role.
+     *
+     * @param roleName the role name as it appears in the token, without prefix
+     * @return the shared authority instance
+     */
+    public GrantedAuthority authorityFor(String roleName) {
+        GrantedAuthority authority = authorities.get(roleName);
+        if (authority != null) {
+            return authority;
+        }
+        if (authorities.size() >= maximumSize) {
+            return new SimpleGrantedAuthority(ROLE_PREFIX + roleName);
+        }
+        return intern(roleName);
+    }
+
+    private GrantedAuthority intern(String roleName) {
+        return authorities.computeIfAbsent(roleName, name -> new SimpleGrantedAuthority(ROLE_PREFIX + name));
+    }
+
+    /**
+     * @return the number of interned authorities
+     */
+    public int size() {
+        return authorities.size();
+    }
+}
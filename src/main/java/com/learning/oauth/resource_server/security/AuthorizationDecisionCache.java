@@ -0,0 +1,199 @@
+package com.learning.oauth.resource_server.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.server.resource.authentication.AbstractOAuth2TokenAuthenticationToken;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Short-lived cache of authorization outcomes that depend only on the caller's authorities.
+ * <p>
+ * For a given authority set, the outcome of a rule such as {@code hasRole("developer")} on
+ * {@code GET /users/status} or {@code @Secured("ROLE_developer")} on a method cannot change during a
+ * token's lifetime. The cache keys each outcome on
+ * </p>
+ * <ul>
+ *     <li>the caller's authority collection itself, so two different authority sets never share an entry,</li>
+ *     <li>whether the caller is authenticated, and</li>
+ *     <li>the route: the HTTP method and matched pattern, the secured {@code Method}, or the expression.</li>
+ * </ul>
+ * <p>
+ * Entries live for {@code ttl}, but never beyond the {@code exp} of the token that produced them.
+ * </p>
+ * <p>
+ * A lookup must be cheaper than the check it saves. Keying on the authority collection allocates nothing
+ * beyond the key: its hash code combines the cached hash codes of the authority names, and comparing two
+ * collections of the interned authorities handed out by {@link RoleSetAuthorityCache} mostly compares
+ * references. Checks that are cheaper still, such as the single bitwise AND of
+ * {@link RoleBitsetAuthorizationManagers}, should not be wrapped at all.
+ * </p>
+ *
+ * <h3>What is never cached:</h3>
+ * <p>
+ * Expressions that read anything besides the authorities, e.g. {@code #name == #jwt.subject} or
+ * {@code returnObject.body.userId}, depend on the invocation. Only expressions made exclusively of
+ * role/authority checks, {@code isAuthenticated()}, {@code permitAll}, {@code denyAll} and boolean
+ * operators qualify, see {@link #isAuthorityOnly(String)}.
+ * </p>
+ *
+ * <h3>Metrics:</h3>
+ * <p>
+ * Registered with Micrometer under the cache name {@code authorization.decisions}.
+ * </p>
+ *
+ * @see DecisionCacheProperties
+ */
+public class AuthorizationDecisionCache {
+
+    static final String CACHE_NAME = "authorization.decisions";
+
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+    private static final Pattern AUTHORITY_ONLY = Pattern.compile(
+            "(?:\\s|\\(|\\)|!|\\band\\b|\\bor\\b|\\bnot\\b|\\bpermitAll\\b|\\bdenyAll\\b|\\bisAuthenticated\\(\\)"
+                    + "|\\b(?:hasRole|hasAnyRole|hasAuthority|hasAnyAuthority)\\(\\s*'[^'#]*'(?:\\s*,\\s*'[^'#]*')*\\s*\\))+");
+
+    private final Cache<DecisionKey, CachedDecision> decisions;
+    private final long ttlNanos;
+
+    public AuthorizationDecisionCache(DecisionCacheProperties properties, MeterRegistry meterRegistry) {
+        this.ttlNanos = properties.getTtl().toNanos();
+        if (properties.isEnabled()) {
+            this.decisions = Caffeine.newBuilder()
+                    .maximumSize(properties.getMaximumSize())
+                    .expireAfter(new DecisionExpiry())
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, decisions, CACHE_NAME);
+        } else {
+            this.decisions = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return decisions != null;
+    }
+
+    /**
+     * @param expression a security SpEL expression
+     * @return {@code true} if the expression's outcome depends on nothing but the caller's authorities
+     */
+    public static boolean isAuthorityOnly(String expression) {
+        return AUTHORITY_ONLY.matcher(expression).matches();
+    }
+
+    /**
+     * Wraps an authorization manager whose outcome depends only on authorities and the route.
+     *
+     * @param delegate the manager to consult on a cache miss
+     * @param route    derives the route part of the key from the secured object
+     * @return the caching manager, or {@code delegate} itself when the cache is disabled
+     */
+    public <T> AuthorizationManager<T> cached(AuthorizationManager<T> delegate, Function<T, ?> route) {
+        if (!isEnabled()) {
+            return delegate;
+        }
+        return (authentication, object) -> {
+            Authentication auth = authentication.get();
+            Object routeKey = route.apply(object);
+            Boolean granted = lookup(auth, routeKey);
+            if (granted != null) {
+                return granted ? GRANTED : DENIED;
+            }
+            AuthorizationResult result = delegate.authorize(authentication, object);
+            if (result != null) {
+                store(auth, routeKey, result.isGranted());
+            }
+            return result;
+        };
+    }
+
+    /**
+     * @return the cached outcome, or {@code null} if unknown
+     */
+    public Boolean lookup(Authentication authentication, Object route) {
+        if (authentication == null) {
+            return null;
+        }
+        DecisionKey key = keyOf(authentication, route);
+        CachedDecision decision = key != null ? decisions.getIfPresent(key) : null;
+        return decision != null ? decision.granted() : null;
+    }
+
+    public void store(Authentication authentication, Object route, boolean granted) {
+        if (authentication == null) {
+            return;
+        }
+        DecisionKey key = keyOf(authentication, route);
+        long lifetime = lifetimeNanos(authentication);
+        if (key != null && lifetime > 0) {
+            decisions.put(key, new CachedDecision(granted, lifetime));
+        }
+    }
+
+    private long lifetimeNanos(Authentication authentication) {
+        if (authentication instanceof AbstractOAuth2TokenAuthenticationToken<?> tokenAuthentication) {
+            Instant expiresAt = tokenAuthentication.getToken().getExpiresAt();
+            if (expiresAt != null) {
+                return Math.min(ttlNanos, Duration.between(Instant.now(), expiresAt).toNanos());
+            }
+        }
+        return ttlNanos;
+    }
+
+    /**
+     * Keys on the authorities themselves; a hash of them could collide and hand one authority set the
+     * cached grant of another. The immutable authority list of an {@code AbstractAuthenticationToken} is
+     * used as is. The same authorities in another order only make another entry, never a wrong one.
+     *
+     * @return the key, or {@code null} for an authority collection that is neither a list nor a set
+     */
+    private static DecisionKey keyOf(Authentication authentication, Object route) {
+        Collection<? extends GrantedAuthority> authorities = authentication.getAuthorities();
+        if (!(authorities instanceof List<?>) && !(authorities instanceof Set<?>)) {
+            return null;
+        }
+        return new DecisionKey(authorities, authentication.isAuthenticated(), route);
+    }
+
+    private record DecisionKey(Collection<? extends GrantedAuthority> authorities, boolean authenticated,
+                               Object route) {
+    }
+
+    private record CachedDecision(boolean granted, long lifetimeNanos) {
+    }
+
+    private static final class DecisionExpiry implements Expiry<DecisionKey, CachedDecision> {
+
+        @Override
+        public long expireAfterCreate(DecisionKey key, CachedDecision decision, long currentTime) {
+            return decision.lifetimeNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(DecisionKey key, CachedDecision decision, long currentTime, long currentDuration) {
+            return decision.lifetimeNanos();
+        }
+
+        @Override
+        public long expireAfterRead(DecisionKey key, CachedDecision decision, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
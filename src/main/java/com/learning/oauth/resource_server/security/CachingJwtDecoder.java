@@ -0,0 +1,133 @@
+package com.learning.oauth.resource_server.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * {@link JwtDecoder} decorator that remembers tokens which were already parsed and signature-verified.
+ * <p>
+ * Clients typically reuse one access token for many calls, so the RSA signature check performed by
+ * the delegate is repeated for identical input. This decoder keeps the resulting {@link Jwt} in a
+ * bounded Caffeine cache keyed by {@link TokenHash}. Each entry lives until the token's {@code exp}
+ * claim or {@code max-ttl}, whichever comes first, so an expired token is never served from cache.
+ * </p>
+ * <p>
+ * The same key is used to consult the {@link RejectedTokenCache}, so a token that was terminally rejected
+ * a moment ago fails again without any parsing or signature work.
+ * </p>
+ *
+ * <h3>Metrics:</h3>
+ * <p>
+ * The cache is registered with Micrometer under the name {@code jwt.verified}, exposing
+ * {@code cache.gets{result=hit|miss}}, {@code cache.evictions} and {@code cache.size}
+ * on {@code /actuator/metrics}.
+ * </p>
+ *
+ * @see JwtDecoderProperties.Cache
+ * @see RejectedTokenCache
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+    static final String CACHE_NAME = "jwt.verified";
+
+    private final JwtDecoder delegate;
+    private final Cache<TokenHash, Jwt> verified;
+    private final RejectedTokenCache rejected;
+    private final long maxTtlNanos;
+
+    /**
+     * @param delegate      the decoder performing the actual parsing and verification
+     * @param properties    JWT decoding properties; disabled caches are simply not consulted
+     * @param failures      creates the exceptions thrown for remembered rejections
+     * @param meterRegistry registry the caches report their statistics to
+     */
+    public CachingJwtDecoder(JwtDecoder delegate, JwtDecoderProperties properties, SecurityFailures failures,
+                             MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.maxTtlNanos = properties.getCache().getMaxTtl().toNanos();
+        if (properties.getCache().isEnabled()) {
+            this.verified = Caffeine.newBuilder()
+                    .maximumSize(properties.getCache().getMaximumSize())
+                    .expireAfter(new TokenExpiry())
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, verified, CACHE_NAME);
+        } else {
+            this.verified = null;
+        }
+        this.rejected = properties.getRejectedCache().isEnabled()
+                ? new RejectedTokenCache(properties.getRejectedCache(), failures, meterRegistry)
+                : null;
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        TokenHash key = TokenHash.of(token);
+        if (verified != null) {
+            Jwt jwt = verified.getIfPresent(key);
+            if (jwt != null) {
+                return jwt;
+            }
+        }
+        if (rejected != null) {
+            rejected.rejectIfKnown(key);
+        }
+
+        Jwt jwt;
+        try {
+            jwt = delegate.decode(token);
+        } catch (BadJwtException ex) {
+            if (rejected != null && RejectedTokenCache.isTerminal(ex)) {
+                rejected.remember(key, ex);
+            }
+            throw ex;
+        }
+        if (verified != null && remainingNanos(jwt) > 0) {
+            verified.put(key, jwt);
+        }
+        return jwt;
+    }
+
+    private long remainingNanos(Jwt jwt) {
+        Instant expiresAt = jwt.getExpiresAt();
+        if (expiresAt == null) {
+            return maxTtlNanos;
+        }
+        Duration remaining = Duration.between(Instant.now(), expiresAt);
+        if (remaining.isNegative() || remaining.isZero()) {
+            return 0;
+        }
+        return Math.min(remaining.toNanos(), maxTtlNanos);
+    }
+
+    /**
+     * Expires each entry at the token's own {@code exp}; reads and updates never extend the lifetime.
+     */
+    private final class TokenExpiry implements Expiry<TokenHash, Jwt> {
+
+        @Override
+        public long expireAfterCreate(TokenHash key, Jwt jwt, long currentTime) {
+            return remainingNanos(jwt);
+        }
+
+        @Override
+        public long expireAfterUpdate(TokenHash key, Jwt jwt, long currentTime, long currentDuration) {
+            return remainingNanos(jwt);
+        }
+
+        @Override
+        public long expireAfterRead(TokenHash key, Jwt jwt, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.learning.oauth.resource_server.security;
+
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.EvaluationException;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelEvaluationException;
+import org.springframework.expression.spel.SpelMessage;
+import org.springframework.security.access.expression.SecurityExpressionOperations;
+import org.springframework.security.core.Authentication;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Security expression parsed once in {@code SpelCompilerMode.IMMEDIATE}, with interpreted fallback and timing.
+ * <p>
+ * The compiled expression is used until running its generated bytecode fails (for example because a
+ * property type changed between invocations). From then on, the interpreted twin, parsed with the
+ * compiler switched off, is used for good. Expressions that SpEL cannot compile at all simply stay
+ * interpreted inside the compiled expression.
+ * </p>
+ * <p>
+ * Every evaluation with an {@link EvaluationContext} is recorded on a per-expression {@link Timer}.
+ * </p>
+ * <p>
+ * Expressions that depend only on the caller's authorities may be given an
+ * {@link AuthorizationDecisionCache}; their boolean outcome is then cached per authority set.
+ * </p>
+ *
+ * @see CompilingMethodSecurityExpressionHandler
+ */
+class CompiledSpelExpression implements Expression {
+
+    private final Expression compiled;
+    private final Supplier<Expression> interpretedParser;
+    private final Supplier<Timer> timer;
+    private final AuthorizationDecisionCache decisionCache;
+    private volatile Expression interpreted;
+
+    /**
+     * @param compiled          the expression parsed in {@code SpelCompilerMode.IMMEDIATE}
+     * @param interpretedParser parses the interpreted fallback on demand
+     * @param timer             supplies the evaluation timer
+     * @param decisionCache     cache for authority-only expressions, or {@code null} if not cacheable
+     */
+    CompiledSpelExpression(Expression compiled, Supplier<Expression> interpretedParser, Supplier<Timer> timer,
+                           AuthorizationDecisionCache decisionCache) {
+        this.compiled = compiled;
+        this.interpretedParser = interpretedParser;
+        this.timer = timer;
+        this.decisionCache = decisionCache;
+    }
+
+    private Expression current() {
+        Expression fallback = interpreted;
+        return fallback != null ? fallback : compiled;
+    }
+
+    private <T> T timed(Supplier<T> evaluation) {
+        long start = System.nanoTime();
+        try {
+            return evaluation.get();
+        } catch (SpelEvaluationException ex) {
+            if (interpreted != null || ex.getMessageCode() != SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION) {
+                throw ex;
+            }
+            interpreted = interpretedParser.get();
+            return evaluation.get();
+        } finally {
+            timer.get().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public String getExpressionString() {
+        return compiled.getExpressionString();
+    }
+
+    @Override
+    public Object getValue() throws EvaluationException {
+        return current().getValue();
+    }
+
+    @Override
+    public <T> T getValue(Class<T> desiredResultType) throws EvaluationException {
+        return current().getValue(desiredResultType);
+    }
+
+    @Override
+    public Object getValue(Object rootObject) throws EvaluationException {
+        return current().getValue(rootObject);
+    }
+
+    @Override
+    public <T> T getValue(Object rootObject, Class<T> desiredResultType) throws EvaluationException {
+        return current().getValue(rootObject, desiredResultType);
+    }
+
+    @Override
+    public Object getValue(EvaluationContext context) throws EvaluationException {
+        return cachedOrEvaluated(context, () -> current().getValue(context));
+    }
+
+    @Override
+    public Object getValue(EvaluationContext context, Object rootObject) throws EvaluationException {
+        return timed(() -> current().getValue(context, rootObject));
+    }
+
+    @Override
+    public <T> T getValue(EvaluationContext context, Class<T> desiredResultType) throws EvaluationException {
+        if (desiredResultType != Boolean.class) {
+            return timed(() -> current().getValue(context, desiredResultType));
+        }
+        return desiredResultType.cast(cachedOrEvaluated(context, () -> current().getValue(context, desiredResultType)));
+    }
+
+    /**
+     * Serves a boolean outcome from the decision cache when this expression is cacheable.
+     */
+    private Object cachedOrEvaluated(EvaluationContext context, Supplier<?> evaluation) {
+        if (decisionCache == null
+                || !(context.getRootObject().getValue() instanceof SecurityExpressionOperations root)) {
+            return timed(evaluation);
+        }
+        Authentication authentication = root.getAuthentication();
+        Boolean cached = decisionCache.lookup(authentication, this);
+        if (cached != null) {
+            return cached;
+        }
+        Object value = timed(evaluation);
+        if (value instanceof Boolean granted) {
+            decisionCache.store(authentication, this, granted);
+        }
+        return value;
+    }
+
+    @Override
+    public <T> T getValue(EvaluationContext context, Object rootObject, Class<T> desiredResultType)
+            throws EvaluationException {
+        return timed(() -> current().getValue(context, rootObject, desiredResultType));
+    }
+
+    @Override
+    public Class<?> getValueType() throws EvaluationException {
+        return current().getValueType();
+    }
+
+    @Override
+    public Class<?> getValueType(Object rootObject) throws EvaluationException {
+        return current().getValueType(rootObject);
+    }
+
+    @Override
+    public Class<?> getValueType(EvaluationContext context) throws EvaluationException {
+        return current().getValueType(context);
+    }
+
+    @Override
+    public Class<?> getValueType(EvaluationContext context, Object rootObject) throws EvaluationException {
+        return current().getValueType(context, rootObject);
+    }
+
+    @Override
+    public TypeDescriptor getValueTypeDescriptor() throws EvaluationException {
+        return current().getValueTypeDescriptor();
+    }
+
+    @Override
+    public TypeDescriptor getValueTypeDescriptor(Object rootObject) throws EvaluationException {
+        return current().getValueTypeDescriptor(rootObject);
+    }
+
+    @Override
+    public TypeDescriptor getValueTypeDescriptor(EvaluationContext context) throws EvaluationException {
+        return current().getValueTypeDescriptor(context);
+    }
+
+    @Override
+    public TypeDescriptor getValueTypeDescriptor(EvaluationContext context, Object rootObject)
+            throws EvaluationException {
+        return current().getValueTypeDescriptor(context, rootObject);
+    }
+
+    @Override
+    public boolean isWritable(Object rootObject) throws EvaluationException {
+        return current().isWritable(rootObject);
+    }
+
+    @Override
+    public boolean isWritable(EvaluationContext context) throws EvaluationException {
+        return current().isWritable(context);
+    }
+
+    @Override
+    public boolean isWritable(EvaluationContext context, Object rootObject) throws EvaluationException {
+        return current().isWritable(context, rootObject);
+    }
+
+    @Override
+    public void setValue(Object rootObject, Object value) throws EvaluationException {
+        current().setValue(rootObject, value);
+    }
+
+    @Override
+    public void setValue(EvaluationContext context, Object value) throws EvaluationException {
+        current().setValue(context, value);
+    }
+
+    @Override
+    public void setValue(EvaluationContext context, Object rootObject, Object value) throws EvaluationException {
+        current().setValue(context, rootObject, value);
+    }
+
+    @Override
+    public String toString() {
+        return getExpressionString();
+    }
+}
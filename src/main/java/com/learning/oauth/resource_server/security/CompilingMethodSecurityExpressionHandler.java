@@ -0,0 +1,151 @@
+package com.learning.oauth.resource_server.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.ParseException;
+import org.springframework.expression.ParserContext;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.util.function.SingletonSupplier;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Method-security expression handler that compiles {@code @PreAuthorize} / {@code @PostAuthorize}
+ * expressions to bytecode and times their evaluation.
+ * <p>
+ * Spring Security already parses each annotation once per method; this handler makes that single parse
+ * produce a {@link CompiledSpelExpression}: a SpEL expression in {@link SpelCompilerMode#IMMEDIATE}
+ * that falls back to interpreted mode if it cannot be compiled or its compiled form fails.
+ * </p>
+ *
+ * <h3>Evaluation Context Reuse:</h3>
+ * <p>
+ * An evaluation context binds the arguments and the {@code Authentication} of a single invocation, so it
+ * is not shared between calls. What is shared is everything that does not depend on the invocation:
+ * the parsed expressions and the method parameter names, which the default discoverer would otherwise
+ * resolve reflectively on every evaluation.
+ * </p>
+ *
+ * <h3>Decision Caching:</h3>
+ * <p>
+ * When the {@link AuthorizationDecisionCache} is enabled, expressions that depend on nothing but the
+ * caller's authorities (see {@link AuthorizationDecisionCache#isAuthorityOnly(String)}) have their outcome
+ * cached. Expressions referring to method arguments such as {@code #name}, or to {@code returnObject},
+ * are excluded automatically.
+ * </p>
+ *
+ * <h3>Metrics:</h3>
+ * <p>
+ * Each expression gets a {@code method.security.expression} timer tagged with {@code expression}.
+ * </p>
+ */
+public class CompilingMethodSecurityExpressionHandler extends DefaultMethodSecurityExpressionHandler {
+
+    static final String TIMER_NAME = "method.security.expression";
+
+    private final SingletonSupplier<MeterRegistry> meterRegistry;
+    private final SingletonSupplier<AuthorizationDecisionCache> decisionCache;
+
+    private CompilingMethodSecurityExpressionHandler(ObjectProvider<MeterRegistry> meterRegistry,
+                                                     ObjectProvider<AuthorizationDecisionCache> decisionCache) {
+        this.meterRegistry = SingletonSupplier.of(meterRegistry::getObject);
+        this.decisionCache = SingletonSupplier.of(decisionCache::getObject);
+    }
+
+    /**
+     * Creates the handler and installs its compiling parser and caching parameter name discoverer. Both
+     * refer back to the handler, so they are installed only once it is fully constructed.
+     *
+     * @param meterRegistry the registry of the expression timers, resolved on first evaluation
+     * @param decisionCache the cache of authority-only outcomes, resolved on first parse
+     * @return the ready-to-use handler
+     */
+    public static CompilingMethodSecurityExpressionHandler create(
+            ObjectProvider<MeterRegistry> meterRegistry, ObjectProvider<AuthorizationDecisionCache> decisionCache) {
+        CompilingMethodSecurityExpressionHandler handler =
+                new CompilingMethodSecurityExpressionHandler(meterRegistry, decisionCache);
+        ClassLoader classLoader = CompilingMethodSecurityExpressionHandler.class.getClassLoader();
+        handler.setExpressionParser(handler.new CompilingExpressionParser(
+                new SpelExpressionParser(new SpelParserConfiguration(SpelCompilerMode.IMMEDIATE, classLoader)),
+                new SpelExpressionParser(new SpelParserConfiguration(SpelCompilerMode.OFF, classLoader))));
+        handler.setParameterNameDiscoverer(new CachingParameterNameDiscoverer(handler.getParameterNameDiscoverer()));
+        return handler;
+    }
+
+    private Timer timerFor(String expression) {
+        return Timer.builder(TIMER_NAME)
+                .description("Evaluation time of a method-security expression")
+                .tag("expression", expression)
+                .register(meterRegistry.obtain());
+    }
+
+    private AuthorizationDecisionCache decisionCacheFor(String expression) {
+        AuthorizationDecisionCache cache = decisionCache.obtain();
+        return cache.isEnabled() && AuthorizationDecisionCache.isAuthorityOnly(expression) ? cache : null;
+    }
+
+    /**
+     * Parses every expression twice: once for the compiler, once as interpreted fallback (lazily).
+     */
+    private final class CompilingExpressionParser implements ExpressionParser {
+
+        private final ExpressionParser compilingParser;
+        private final ExpressionParser interpretingParser;
+
+        private CompilingExpressionParser(ExpressionParser compilingParser, ExpressionParser interpretingParser) {
+            this.compilingParser = compilingParser;
+            this.interpretingParser = interpretingParser;
+        }
+
+        @Override
+        public Expression parseExpression(String expressionString) throws ParseException {
+            return new CompiledSpelExpression(compilingParser.parseExpression(expressionString),
+                    () -> interpretingParser.parseExpression(expressionString),
+                    SingletonSupplier.of(() -> timerFor(expressionString)),
+                    decisionCacheFor(expressionString));
+        }
+
+        @Override
+        public Expression parseExpression(String expressionString, ParserContext context) throws ParseException {
+            return new CompiledSpelExpression(compilingParser.parseExpression(expressionString, context),
+                    () -> interpretingParser.parseExpression(expressionString, context),
+                    SingletonSupplier.of(() -> timerFor(expressionString)),
+                    decisionCacheFor(expressionString));
+        }
+    }
+
+    /**
+     * Remembers the parameter names of each method, including methods without resolvable names.
+     */
+    private static final class CachingParameterNameDiscoverer implements ParameterNameDiscoverer {
+
+        private final ParameterNameDiscoverer delegate;
+        private final Map<Method, Optional<String[]>> methodNames = new ConcurrentHashMap<>();
+
+        private CachingParameterNameDiscoverer(ParameterNameDiscoverer delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String[] getParameterNames(Method method) {
+            return methodNames.computeIfAbsent(method, m -> Optional.ofNullable(delegate.getParameterNames(m)))
+                    .orElse(null);
+        }
+
+        @Override
+        public String[] getParameterNames(Constructor<?> ctor) {
+            return delegate.getParameterNames(ctor);
+        }
+    }
+}
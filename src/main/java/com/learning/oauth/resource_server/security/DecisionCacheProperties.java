@@ -0,0 +1,34 @@
+package com.learning.oauth.resource_server.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Properties of the opt-in authorization decision cache, bound from {@code application.security.decision-cache.*}.
+ *
+ * <pre>
+ * application:
+ *   security:
+ *     decision-cache:
+ *       enabled: false
+ *       maximum-size: 10000
+ *       ttl: 60s
+ * </pre>
+ *
+ * @see AuthorizationDecisionCache
+ */
+@Data
+@ConfigurationProperties(prefix = "application.security.decision-cache")
+public class DecisionCacheProperties {
+
+    /** Whether authorization decisions are cached; off unless explicitly enabled. */
+    private boolean enabled = false;
+
+    /** Maximum number of cached decisions. */
+    private long maximumSize = 10_000;
+
+    /** Upper bound for a decision's lifetime; the token's {@code exp} shortens it further. */
+    private Duration ttl = Duration.ofSeconds(60);
+}
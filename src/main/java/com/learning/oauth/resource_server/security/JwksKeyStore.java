@@ -0,0 +1,194 @@
+package com.learning.oauth.resource_server.security;
+
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * JWK set holder that keeps Keycloak's signing keys fresh off the request path.
+ * <p>
+ * Nimbus' default remote JWK source refreshes lazily, so the first request after the cache expires
+ * (or after Keycloak rotates its keys) pays for the HTTP round trip. This store instead:
+ * </p>
+ * <ul>
+ *     <li>Refreshes the JWK set on a dedicated background thread every {@code refresh-interval}</li>
+ *     <li>Keeps serving the last good key set when a refresh fails (stale-while-revalidate)</li>
+ *     <li>Coalesces the refetches for an unknown {@code kid}, as during a key rotation, into a single
+ *         in-flight fetch on the background thread; the affected requests wait for it, for at most
+ *         {@code fetch-timeout}, and select again from the new key set</li>
+ *     <li>Rate-limits those refetches to one per {@code min-refetch-interval}; within the interval a token
+ *         with an unknown {@code kid} is rejected right away</li>
+ * </ul>
+ * <p>
+ * The same applies before the first key set has been loaded, for instance while Keycloak is down at
+ * startup: a request shares or, once per interval, triggers a background fetch and fails fast in between.
+ * No request thread performs the HTTP fetch itself.
+ * </p>
+ *
+ * @see JwtDecoderProperties.Jwks
+ */
+@Slf4j
+public class JwksKeyStore implements JWKSource<SecurityContext>, SmartLifecycle {
+
+    private static final JWKSet EMPTY = new JWKSet();
+
+    private final String jwkSetUri;
+    private final JwtDecoderProperties.Jwks properties;
+    private final RestClient restClient;
+    private final AtomicReference<JWKSet> current = new AtomicReference<>(EMPTY);
+    private final AtomicReference<CompletableFuture<JWKSet>> inFlight = new AtomicReference<>();
+    private final AtomicLong lastFetchNanos;
+
+    private volatile ScheduledExecutorService scheduler;
+
+    public JwksKeyStore(String jwkSetUri, JwtDecoderProperties.Jwks properties) {
+        this.jwkSetUri = jwkSetUri;
+        this.properties = properties;
+        // nanoTime has an arbitrary origin: start one full interval in the past so the first refetch is allowed
+        this.lastFetchNanos = new AtomicLong(System.nanoTime() - properties.getMinRefetchInterval().toNanos());
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(properties.getFetchTimeout());
+        requestFactory.setReadTimeout(properties.getFetchTimeout());
+        this.restClient = RestClient.builder().requestFactory(requestFactory).build();
+    }
+
+    @Override
+    public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) throws KeySourceException {
+        JWKSet keys = current.get();
+        List<JWK> matches = jwkSelector.select(keys);
+        if (!matches.isEmpty()) {
+            return matches;
+        }
+        CompletableFuture<JWKSet> fetch = claimRefetch() ? refresh() : inFlight.get();
+        if (fetch == null) {
+            if (keys == EMPTY) {
+                throw new KeySourceException("No JWK set loaded from " + jwkSetUri + " yet");
+            }
+            return matches;
+        }
+        return jwkSelector.select(await(fetch));
+    }
+
+    /**
+     * A key miss may trigger a refetch only once per {@code min-refetch-interval}; of the concurrent
+     * callers finding the interval elapsed, only the one claiming it triggers the refetch.
+     */
+    private boolean claimRefetch() {
+        long last = lastFetchNanos.get();
+        long now = System.nanoTime();
+        return now - last >= properties.getMinRefetchInterval().toNanos() && lastFetchNanos.compareAndSet(last, now);
+    }
+
+    /**
+     * Waits at most {@code fetch-timeout} for the fetch; if it fails or takes longer, the caller selects
+     * from the last good key set, provided there is one.
+     */
+    private JWKSet await(CompletableFuture<JWKSet> fetch) throws KeySourceException {
+        try {
+            return fetch.get(properties.getFetchTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KeySourceException("Interrupted while fetching JWK set from " + jwkSetUri, e);
+        } catch (ExecutionException | TimeoutException e) {
+            JWKSet keys = current.get();
+            if (keys == EMPTY) {
+                throw new KeySourceException("Couldn't retrieve JWK set from " + jwkSetUri, e);
+            }
+            return keys;
+        }
+    }
+
+    /**
+     * Starts a fetch on the background thread unless one is already running, in which case the running
+     * fetch is shared. On failure the previous key set stays in place and the returned future completes
+     * exceptionally.
+     */
+    CompletableFuture<JWKSet> refresh() {
+        CompletableFuture<JWKSet> fetch = new CompletableFuture<>();
+        CompletableFuture<JWKSet> existing = inFlight.compareAndExchange(null, fetch);
+        if (existing != null) {
+            return existing;
+        }
+        ScheduledExecutorService executor = this.scheduler;
+        try {
+            if (executor == null) {
+                throw new RejectedExecutionException("JWK set key store is not running");
+            }
+            executor.execute(() -> fetch(fetch));
+        } catch (RejectedExecutionException e) {
+            inFlight.set(null);
+            fetch.completeExceptionally(e);
+        }
+        return fetch;
+    }
+
+    /**
+     * The periodic refresh, already on the background thread: fetches right away unless a requested fetch
+     * is queued or running.
+     */
+    private void scheduledRefresh() {
+        CompletableFuture<JWKSet> fetch = new CompletableFuture<>();
+        if (inFlight.compareAndSet(null, fetch)) {
+            fetch(fetch);
+        }
+    }
+
+    private void fetch(CompletableFuture<JWKSet> fetch) {
+        try {
+            JWKSet keys = JWKSet.parse(restClient.get().uri(jwkSetUri).retrieve().body(String.class));
+            current.set(keys);
+            fetch.complete(keys);
+            log.debug("Loaded {} key(s) from {}", keys.getKeys().size(), jwkSetUri);
+        } catch (Exception e) {
+            log.warn("Failed to refresh JWK set from {}, keeping last known keys: {}", jwkSetUri, e.getMessage());
+            fetch.completeExceptionally(e);
+        } finally {
+            lastFetchNanos.set(System.nanoTime());
+            inFlight.set(null);
+        }
+    }
+
+    @Override
+    public void start() {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jwks-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodMillis = properties.getRefreshInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::scheduledRefresh, 0, periodMillis, TimeUnit.MILLISECONDS);
+        this.scheduler = executor;
+    }
+
+    @Override
+    public void stop() {
+        ScheduledExecutorService executor = this.scheduler;
+        if (executor != null) {
+            executor.shutdownNow();
+            this.scheduler = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+}
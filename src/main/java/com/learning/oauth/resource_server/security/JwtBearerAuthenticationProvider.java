@@ -0,0 +1,71 @@
+package com.learning.oauth.resource_server.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.server.resource.InvalidBearerTokenException;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationProvider;
+import org.springframework.util.Assert;
+
+/**
+ * Bearer token {@link AuthenticationProvider} that behaves like Spring's {@link JwtAuthenticationProvider},
+ * except that a rejected token is reported with the {@link InvalidBearerTokenException} of
+ * {@link SecurityFailures#invalidToken(BadJwtException)}.
+ * <p>
+ * Spring's provider is final and wraps every {@link BadJwtException} in a new
+ * {@link InvalidBearerTokenException} with a full stack trace, so with {@code stackless} enabled each
+ * rejected token would still fill in one stack trace, and the first rejection of a token two. This provider
+ * lets both the decoder's and the wrapping exception be stackless.
+ * </p>
+ *
+ * @see SecurityFailures
+ */
+@Slf4j
+public class JwtBearerAuthenticationProvider implements AuthenticationProvider {
+
+    private final JwtDecoder jwtDecoder;
+    private final Converter<Jwt, ? extends AbstractAuthenticationToken> jwtAuthenticationConverter;
+    private final SecurityFailures securityFailures;
+
+    public JwtBearerAuthenticationProvider(JwtDecoder jwtDecoder,
+                                           Converter<Jwt, ? extends AbstractAuthenticationToken> converter,
+                                           SecurityFailures securityFailures) {
+        this.jwtDecoder = jwtDecoder;
+        this.jwtAuthenticationConverter = converter;
+        this.securityFailures = securityFailures;
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        BearerTokenAuthenticationToken bearer = (BearerTokenAuthenticationToken) authentication;
+        Jwt jwt;
+        try {
+            jwt = jwtDecoder.decode(bearer.getToken());
+        } catch (BadJwtException failed) {
+            log.debug("Failed to authenticate since the JWT was invalid");
+            throw securityFailures.invalidToken(failed);
+        } catch (JwtException failed) {
+            throw new AuthenticationServiceException(failed.getMessage(), failed);
+        }
+        AbstractAuthenticationToken token = jwtAuthenticationConverter.convert(jwt);
+        Assert.notNull(token, "token cannot be null");
+        if (token.getDetails() == null) {
+            token.setDetails(bearer.getDetails());
+        }
+        return token;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return BearerTokenAuthenticationToken.class.isAssignableFrom(authentication);
+    }
+}
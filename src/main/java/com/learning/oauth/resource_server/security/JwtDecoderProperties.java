@@ -0,0 +1,86 @@
+package com.learning.oauth.resource_server.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Tuning properties for JWT decoding, bound from {@code application.security.jwt.*}.
+ *
+ * <pre>
+ * application:
+ *   security:
+ *     jwt:
+ *       cache:
+ *         enabled: true
+ *         maximum-size: 10000
+ *         max-ttl: 5m
+ *       rejected-cache:
+ *         enabled: true
+ *         maximum-size: 1000
+ *         ttl: 30s
+ *       jwks:
+ *         refresh-interval: 5m
+ *         min-refetch-interval: 30s
+ *         fetch-timeout: 5s
+ * </pre>
+ */
+@Data
+@ConfigurationProperties(prefix = "application.security.jwt")
+public class JwtDecoderProperties {
+
+    private Cache cache = new Cache();
+
+    private RejectedCache rejectedCache = new RejectedCache();
+
+    private Jwks jwks = new Jwks();
+
+    /**
+     * Cache of already-verified {@link org.springframework.security.oauth2.jwt.Jwt} objects.
+     */
+    @Data
+    public static class Cache {
+
+        /** Whether verified tokens are cached at all. */
+        private boolean enabled = true;
+
+        /** Maximum number of verified tokens kept in memory. */
+        private long maximumSize = 10_000;
+
+        /** Upper bound for an entry's lifetime, applied even when the token's {@code exp} is further away. */
+        private Duration maxTtl = Duration.ofMinutes(5);
+    }
+
+    /**
+     * Negative cache of recently rejected token hashes.
+     */
+    @Data
+    public static class RejectedCache {
+
+        /** Whether repeated rejected tokens are short-circuited without crypto work. */
+        private boolean enabled = true;
+
+        /** Maximum number of rejected token hashes kept in memory. */
+        private long maximumSize = 1_000;
+
+        /** How long a rejection is remembered. */
+        private Duration ttl = Duration.ofSeconds(30);
+    }
+
+    /**
+     * Background-refreshed JWK set used to verify token signatures.
+     */
+    @Data
+    public static class Jwks {
+
+        /** How often the JWK set is refreshed in the background. */
+        private Duration refreshInterval = Duration.ofMinutes(5);
+
+        /** Minimum time between two on-demand refetches triggered by an unknown {@code kid}. */
+        private Duration minRefetchInterval = Duration.ofSeconds(30);
+
+        /** Connect and read timeout for a single JWK set fetch; also bounds how long a request thread waits for it. */
+        private Duration fetchTimeout = Duration.ofSeconds(5);
+    }
+}
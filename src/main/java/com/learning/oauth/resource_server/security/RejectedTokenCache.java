@@ -0,0 +1,109 @@
+package com.learning.oauth.resource_server.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nimbusds.jose.proc.BadJWSException;
+import com.nimbusds.jwt.proc.BadJWTException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+
+import java.text.ParseException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Small, fixed-size negative cache of bearer tokens that recently failed validation.
+ * <p>
+ * A client stuck in a retry loop with an expired or forged token would otherwise pay the full parse
+ * and signature-verification cost on every attempt. Once a token has been rejected, its
+ * {@link TokenHash} is remembered for a short TTL together with the original failure message, so a
+ * repeat is answered with a lookup and the 401 body stays identical to the first one.
+ * </p>
+ * <p>
+ * Only terminal failures are remembered, see {@link #isTerminal}: invalid claims, a malformed token, or a
+ * signature that does not verify under a resolved key. A token whose key could not be found is not: during
+ * key rotation its {@code kid} may only be known after the next JWK set refresh. Transient failures such
+ * as an unreachable JWK set are never cached either.
+ * </p>
+ * <p>
+ * Entries hold the message and validation errors only, never the exception with its stack trace and
+ * cause chain. Each repeat is thrown as a new exception created by {@link SecurityFailures}.
+ * </p>
+ *
+ * <h3>Metrics:</h3>
+ * <p>
+ * Registered with Micrometer under the cache name {@code jwt.rejected}.
+ * </p>
+ *
+ * @see JwtDecoderProperties.RejectedCache
+ */
+public class RejectedTokenCache {
+
+    static final String CACHE_NAME = "jwt.rejected";
+
+    private final Cache<TokenHash, Rejection> rejected;
+    private final SecurityFailures failures;
+
+    public RejectedTokenCache(JwtDecoderProperties.RejectedCache properties, SecurityFailures failures,
+                              MeterRegistry meterRegistry) {
+        this.failures = failures;
+        this.rejected = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, rejected, CACHE_NAME);
+    }
+
+    /**
+     * Throws the remembered rejection for this token, if there is one.
+     *
+     * @param key the hash of the incoming token
+     * @throws BadJwtException carrying the message of the first failure
+     */
+    public void rejectIfKnown(TokenHash key) {
+        Rejection rejection = rejected.getIfPresent(key);
+        if (rejection != null) {
+            throw failures.rejected(rejection.message(), rejection.errors());
+        }
+    }
+
+    /**
+     * Whether a rejection holds for the token whatever the key set: expired or otherwise invalid claims,
+     * a malformed token (unparseable, or unsigned), or a bad signature under a resolved key. Key-resolution
+     * misses ("no matching key(s) found") and algorithm mismatches are not terminal.
+     *
+     * @param ex the rejection thrown by the delegate decoder
+     * @return {@code true} if the token may be rejected again without decoding it
+     */
+    public static boolean isTerminal(BadJwtException ex) {
+        if (ex instanceof JwtValidationException) {
+            return true;
+        }
+        Throwable cause = ex.getCause();
+        return cause == null
+                || cause instanceof ParseException
+                || cause instanceof BadJWSException
+                || cause instanceof BadJWTException;
+    }
+
+    /**
+     * Remembers that the token failed validation with the given exception; only call this for
+     * {@linkplain #isTerminal terminal} rejections.
+     */
+    public void remember(TokenHash key, BadJwtException ex) {
+        Collection<OAuth2Error> errors = ex instanceof JwtValidationException validation
+                ? List.copyOf(validation.getErrors())
+                : null;
+        rejected.put(key, new Rejection(ex.getMessage(), errors));
+    }
+
+    /**
+     * @param errors the validation errors, or {@code null} if the rejection was no {@link JwtValidationException}
+     */
+    private record Rejection(String message, Collection<OAuth2Error> errors) {
+    }
+}
@@ -0,0 +1,63 @@
+package com.learning.oauth.resource_server.security;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns each known Keycloak role a fixed bit index at startup.
+ * <p>
+ * The index is built once from {@code application.security.authorities.known-roles}, in declaration order,
+ * and never changes afterwards, so it can be read without synchronization. At most {@value #MAX_ROLES}
+ * roles get a bit; roles beyond that, and roles not known at startup, are simply not encoded and are
+ * checked by name instead.
+ * </p>
+ *
+ * @see RoleBitset
+ * @see RoleBitsetAuthorizationManagers
+ */
+public class RoleBitIndex {
+
+    public static final int MAX_ROLES = Long.SIZE;
+
+    private final Map<String, Long> bits;
+
+    public RoleBitIndex(List<String> knownRoles) {
+        Map<String, Long> index = new HashMap<>();
+        for (String role : knownRoles) {
+            if (index.size() == MAX_ROLES) {
+                break;
+            }
+            index.putIfAbsent(role, 1L << index.size());
+        }
+        this.bits = Map.copyOf(index);
+    }
+
+    /**
+     * @param roleName the role name without {@code ROLE_} prefix
+     * @return the single-bit mask for the role, or {@code 0} if the role has no bit
+     */
+    public long bitOf(String roleName) {
+        Long bit = bits.get(roleName);
+        return bit != null ? bit : 0L;
+    }
+
+    /**
+     * Computes the mask for a set of role names.
+     *
+     * @param roleNames role names without {@code ROLE_} prefix
+     * @return the combined mask, or {@code 0} if any role has no bit (the caller must then check by name)
+     */
+    public long maskOf(Collection<String> roleNames) {
+        long mask = 0;
+        for (String roleName : roleNames) {
+            long bit = bitOf(roleName);
+            if (bit == 0) {
+                return 0;
+            }
+            mask |= bit;
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,75 @@
+package com.learning.oauth.resource_server.security;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.io.Serial;
+
+/**
+ * A token's known roles encoded as a single {@code long}, carried alongside the regular role authorities.
+ * <p>
+ * {@link com.learning.oauth.resource_server.config.KeycloakRoleConverter} places this authority first in
+ * the authority list, so {@link RoleBitsetAuthorizationManagers} finds it right away and can answer a role
+ * check with one bitwise AND instead of scanning every authority with string equality.
+ * </p>
+ * <p>
+ * The authority string is prefixed with {@value #AUTHORITY_PREFIX} rather than {@code ROLE_}, so
+ * {@code hasRole(...)} / {@code hasAuthority(...)} checks by name can never match it by accident.
+ * </p>
+ *
+ * @see RoleBitIndex
+ */
+public final class RoleBitset implements GrantedAuthority {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    static final String AUTHORITY_PREFIX = "BITSET_";
+
+    private final long bits;
+    private final String authority;
+
+    public RoleBitset(long bits) {
+        this.bits = bits;
+        this.authority = AUTHORITY_PREFIX + Long.toHexString(bits);
+    }
+
+    public long bits() {
+        return bits;
+    }
+
+    /**
+     * @param mask the required role bits
+     * @return {@code true} if all bits of {@code mask} are set
+     */
+    public boolean containsAll(long mask) {
+        return (bits & mask) == mask;
+    }
+
+    /**
+     * @param mask the candidate role bits
+     * @return {@code true} if at least one bit of {@code mask} is set
+     */
+    public boolean containsAny(long mask) {
+        return (bits & mask) != 0;
+    }
+
+    @Override
+    public String getAuthority() {
+        return authority;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof RoleBitset other && other.bits == bits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(bits);
+    }
+
+    @Override
+    public String toString() {
+        return authority;
+    }
+}
@@ -0,0 +1,115 @@
+package com.learning.oauth.resource_server.security;
+
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Factory for {@link AuthorizationManager}s that answer role checks against a {@link RoleBitset}.
+ * <p>
+ * The required roles are turned into a bit mask once, when the manager is created (or, for
+ * {@code @Secured}, once per annotated method). At request time the check finds the {@link RoleBitset} among
+ * the authorities of the {@link Authentication}, normally the first one, and performs a single bitwise AND.
+ * If the authentication carries no
+ * {@link RoleBitset}, or a required role has no bit in the {@link RoleBitIndex}, the check falls back to
+ * comparing authority names, so the outcome is always the same as Spring's own managers.
+ * </p>
+ *
+ * <h3>Usage:</h3>
+ * <pre>
+ * .requestMatchers(HttpMethod.GET, "/users/status").access(roleBitsets.hasRole("developer"))
+ * </pre>
+ *
+ * @see RoleBitIndex
+ * @see RoleBitset
+ */
+public class RoleBitsetAuthorizationManagers {
+
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+    private final RoleBitIndex roleBitIndex;
+    private final Map<Collection<String>, Long> securedMasks = new ConcurrentHashMap<>();
+
+    public RoleBitsetAuthorizationManagers(RoleBitIndex roleBitIndex) {
+        this.roleBitIndex = roleBitIndex;
+    }
+
+    /**
+     * Equivalent of {@code hasRole(role)}.
+     */
+    public <T> AuthorizationManager<T> hasRole(String role) {
+        return hasAnyRole(role);
+    }
+
+    /**
+     * Equivalent of {@code hasAnyRole(roles...)}.
+     */
+    public <T> AuthorizationManager<T> hasAnyRole(String... roles) {
+        List<String> authorities = new ArrayList<>(roles.length);
+        for (String role : roles) {
+            authorities.add(AuthorityRegistry.ROLE_PREFIX + role);
+        }
+        long mask = roleBitIndex.maskOf(List.of(roles));
+        return (authentication, object) -> decide(authentication.get(), mask, authorities);
+    }
+
+    /**
+     * Manager for {@code @Secured} checks, receiving the annotation's authorities (any-of semantics).
+     * Plug it in with {@code SecuredAuthorizationManager#setAuthoritiesAuthorizationManager}.
+     */
+    public AuthorizationManager<Collection<String>> securedAuthorities() {
+        return (authentication, authorities) ->
+                decide(authentication.get(), securedMasks.computeIfAbsent(authorities, this::maskOfAuthorities), authorities);
+    }
+
+    private long maskOfAuthorities(Collection<String> authorities) {
+        List<String> roleNames = new ArrayList<>(authorities.size());
+        for (String authority : authorities) {
+            if (!authority.startsWith(AuthorityRegistry.ROLE_PREFIX)) {
+                return 0;
+            }
+            roleNames.add(authority.substring(AuthorityRegistry.ROLE_PREFIX.length()));
+        }
+        return roleBitIndex.maskOf(roleNames);
+    }
+
+    private static AuthorizationDecision decide(Authentication authentication, long mask, Collection<String> authorities) {
+        if (authentication == null) {
+            return DENIED;
+        }
+        Collection<? extends GrantedAuthority> granted = authentication.getAuthorities();
+        if (mask != 0) {
+            RoleBitset bitset = bitsetOf(granted);
+            if (bitset != null) {
+                return bitset.containsAny(mask) ? GRANTED : DENIED;
+            }
+        }
+        for (GrantedAuthority authority : granted) {
+            if (authorities.contains(authority.getAuthority())) {
+                return GRANTED;
+            }
+        }
+        return DENIED;
+    }
+
+    /**
+     * Looks the bitset up by type, since other converters or authentication providers may add authorities
+     * in front of it; with {@code KeycloakRoleConverter} it is the first authority.
+     */
+    private static RoleBitset bitsetOf(Collection<? extends GrantedAuthority> granted) {
+        for (GrantedAuthority authority : granted) {
+            if (authority instanceof RoleBitset bitset) {
+                return bitset;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,80 @@
+package com.learning.oauth.resource_server.security;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Precomputed transitive closure of the configured role hierarchy (Keycloak composite roles).
+ * <p>
+ * Spring's {@code RoleHierarchy} walks the hierarchy at check time, for every authorization decision.
+ * This class walks it once, when the hierarchy is loaded, and stores for each role the full list of roles
+ * it implies. Expanding a token's roles is then a map lookup per role, and together with the
+ * {@link RoleSetAuthorityCache} it happens once per distinct role set rather than per request.
+ * </p>
+ *
+ * <h3>Configuration Example:</h3>
+ * <pre>
+ * application:
+ *   security:
+ *     authorities:
+ *       hierarchy:
+ *         admin: [developer]
+ *         developer: [user]
+ *         "[resource-server:auditor]": [resource-server:viewer]
+ * </pre>
+ * <p>
+ * Here {@code admin} implies {@code developer} and {@code user}. Client roles, named
+ * {@code <client>:<role>}, must be bracketed as keys, or Spring Boot's binder drops the {@code :} and the
+ * key never matches. Cycles are tolerated. The hierarchy is fixed at startup; changing it requires a
+ * restart, which also clears the role sets memoized with it.
+ * </p>
+ */
+public class RoleHierarchyClosure {
+
+    private final Map<String, List<String>> implied;
+
+    public RoleHierarchyClosure(Map<String, List<String>> hierarchy) {
+        this.implied = closureOf(hierarchy);
+    }
+
+    /**
+     * @param roleName a role name without {@code ROLE_} prefix
+     * @return all roles transitively implied by {@code roleName}, excluding itself; never {@code null}
+     */
+    public List<String> impliedBy(String roleName) {
+        return implied.getOrDefault(roleName, Collections.emptyList());
+    }
+
+    /**
+     * @return {@code true} if no role implies any other role
+     */
+    public boolean isEmpty() {
+        return implied.isEmpty();
+    }
+
+    private static Map<String, List<String>> closureOf(Map<String, List<String>> hierarchy) {
+        Map<String, List<String>> closure = new HashMap<>();
+        for (String role : hierarchy.keySet()) {
+            Set<String> reachable = new LinkedHashSet<>();
+            collect(role, hierarchy, reachable);
+            reachable.remove(role);
+            if (!reachable.isEmpty()) {
+                closure.put(role, List.copyOf(reachable));
+            }
+        }
+        return Map.copyOf(closure);
+    }
+
+    private static void collect(String role, Map<String, List<String>> hierarchy, Set<String> reachable) {
+        List<String> children = hierarchy.getOrDefault(role, Collections.emptyList());
+        for (String child : children) {
+            if (reachable.add(child)) {
+                collect(child, hierarchy, reachable);
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.learning.oauth.resource_server.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Bounded memoization of role list to authority collection.
+ * <p>
+ * Only a few dozen distinct {@code realm_access.roles} combinations exist across all users, yet every
+ * token used to get its own freshly built authority list. This cache keys on the exact role list (order
+ * included) and hands out one shared, immutable authority collection per combination.
+ * </p>
+ *
+ * <h3>Metrics:</h3>
+ * <p>
+ * Registered with Micrometer under the cache name {@code authorities.role-sets}; {@code cache.size}
+ * is the number of distinct role sets currently held, {@code cache.evictions} the number dropped
+ * because of {@code maximum-size}. Both only describe the current contents, so the counter
+ * {@code authorities.role-sets.built} counts every role set the cache has built an authority
+ * collection for: the number of distinct role sets seen, plus one for each evicted set seen again.
+ * </p>
+ *
+ * @see AuthorityProperties.RoleSetCache
+ */
+public class RoleSetAuthorityCache {
+
+    static final String CACHE_NAME = "authorities.role-sets";
+    static final String BUILT_METRIC = CACHE_NAME + ".built";
+
+    private final Cache<List<?>, List<GrantedAuthority>> roleSets;
+    private final Counter builtRoleSets;
+
+    public RoleSetAuthorityCache(AuthorityProperties.RoleSetCache properties, MeterRegistry meterRegistry) {
+        this.roleSets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, roleSets, CACHE_NAME);
+        this.builtRoleSets = Counter.builder(BUILT_METRIC)
+                .description("Role sets an authority collection was built for")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the shared authority collection for the given role list, building it once on first sight.
+     *
+     * @param roles  the role list exactly as found in the token
+     * @param mapper builds the authorities for a role list that is not cached yet
+     * @return an immutable authority collection shared by all tokens with the same role list
+     */
+    public List<GrantedAuthority> authoritiesFor(List<?> roles, Function<List<?>, List<GrantedAuthority>> mapper) {
+        List<GrantedAuthority> authorities = roleSets.getIfPresent(roles);
+        if (authorities != null) {
+            return authorities;
+        }
+        // Copy the key so later changes to the claim's list cannot corrupt the cache.
+        List<?> key = Collections.unmodifiableList(new ArrayList<>(roles));
+        return roleSets.get(key, roleSet -> {
+            builtRoleSets.increment();
+            return Collections.unmodifiableList(mapper.apply(roleSet));
+        });
+    }
+}
@@ -0,0 +1,235 @@
+package com.learning.oauth.resource_server.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.RequestPath;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Segment-wise radix tree of {@code (HTTP method, path pattern)} routes with first-match semantics.
+ * <p>
+ * {@code authorizeHttpRequests} evaluates its request matchers one after the other, so the cost of finding
+ * the rule for a request grows with the number of rules. This tree is compiled once from the same ordered
+ * rule list; a lookup walks the request path segment by segment and returns the rule that was declared
+ * first among all matching rules. The cost depends on the path depth, not on the number of rules.
+ * </p>
+ * <p>
+ * Requests are matched on the same decoded path Spring MVC dispatches on: the {@link PathContainer} within
+ * the application, compared segment by segment on {@link PathContainer.PathSegment#valueToMatch()}, i.e.
+ * percent-decoded and without {@code ;} path parameters. Matching the raw request URI instead would let
+ * {@code /users/%73tatus} miss the {@code /users/status} rule while MVC still dispatches it there.
+ * </p>
+ *
+ * <h3>Supported Patterns:</h3>
+ * <ul>
+ *     <li>Literal segments: {@code /users/status}</li>
+ *     <li>Single-segment wildcards: {@code /users/*}, {@code /users/{id}}</li>
+ *     <li>A trailing multi-segment wildcard: {@code /actuator/**} (also matches {@code /actuator})</li>
+ * </ul>
+ * <p>
+ * Anything else (partial-segment wildcards, regex variables, {@code **} in the middle) is rejected when
+ * the tree is built, rather than silently matching differently from Spring's {@code PathPattern}.
+ * </p>
+ *
+ * <h3>Usage:</h3>
+ * <pre>
+ * RouteTree&lt;AuthorizationManager&lt;RequestAuthorizationContext&gt;&gt; routes = RouteTree.&lt;...&gt;builder()
+ *         .route(HttpMethod.GET, "/users/status", hasDeveloperRole)
+ *         .route(null, "/actuator/**", permitAll)
+ *         .build();
+ * http.authorizeHttpRequests(authorize -&gt; authorize.anyRequest().access(RouteTree.authorizationManager(routes, authenticated)));
+ * </pre>
+ *
+ * @param <T> the value attached to each route, typically an {@link AuthorizationManager}
+ */
+public final class RouteTree<T> {
+
+    private final Node<T> root;
+    private final int size;
+
+    private RouteTree(Node<T> root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Combines a route tree of authorization managers into a single manager.
+     *
+     * @param routes   the compiled rules
+     * @param fallback the manager used when no rule matches (the {@code anyRequest()} rule)
+     * @return a manager delegating to the first matching rule's manager
+     */
+    public static AuthorizationManager<RequestAuthorizationContext> authorizationManager(
+            RouteTree<AuthorizationManager<RequestAuthorizationContext>> routes,
+            AuthorizationManager<RequestAuthorizationContext> fallback) {
+        return (authentication, context) -> {
+            AuthorizationManager<RequestAuthorizationContext> manager = routes.find(context.getRequest());
+            return (manager != null ? manager : fallback).authorize(authentication, context);
+        };
+    }
+
+    /**
+     * Parses the request path like {@code PathPatternRequestMatcher} does: an already parsed path is reused,
+     * otherwise it is parsed and the cached attribute removed again.
+     *
+     * @return the value of the first declared rule matching the request, or {@code null}
+     */
+    public T find(HttpServletRequest request) {
+        RequestPath path;
+        if (ServletRequestPathUtils.hasParsedRequestPath(request)) {
+            path = ServletRequestPathUtils.getParsedRequestPath(request);
+        } else {
+            path = ServletRequestPathUtils.parseAndCache(request);
+            ServletRequestPathUtils.clearParsedRequestPath(request);
+        }
+        return find(request.getMethod(), path.pathWithinApplication());
+    }
+
+    /**
+     * @param method the request's HTTP method
+     * @param path   the request path within the application (without context path), percent-encoded
+     * @return the value of the first declared rule matching method and path, or {@code null}
+     */
+    public T find(String method, String path) {
+        return find(method, PathContainer.parsePath(path));
+    }
+
+    private T find(String method, PathContainer path) {
+        Route<T> match = walk(root, segments(path), 0, method, null);
+        return match != null ? match.value() : null;
+    }
+
+    /**
+     * The decoded segments after the leading separator; a trailing or doubled separator yields an empty
+     * segment, which only an identical pattern or {@code **} matches, as with {@code PathPattern}.
+     */
+    private static List<String> segments(PathContainer path) {
+        List<PathContainer.Element> elements = path.elements();
+        List<String> segments = new ArrayList<>(elements.size() / 2 + 1);
+        int start = !elements.isEmpty() && elements.get(0) instanceof PathContainer.Separator ? 1 : 0;
+        for (int i = start; i < elements.size(); i++) {
+            PathContainer.Element element = elements.get(i);
+            if (element instanceof PathContainer.PathSegment segment) {
+                segments.add(segment.valueToMatch());
+            } else if (i == elements.size() - 1 || elements.get(i + 1) instanceof PathContainer.Separator) {
+                segments.add("");
+            }
+        }
+        return segments;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static <T> Route<T> walk(Node<T> node, List<String> segments, int index, String method, Route<T> best) {
+        best = earliest(node.catchAll, method, best);
+        if (index == segments.size()) {
+            return earliest(node.terminal, method, best);
+        }
+        String segment = segments.get(index);
+        Node<T> literal = node.literals.get(segment);
+        if (literal != null) {
+            best = walk(literal, segments, index + 1, method, best);
+        }
+        if (node.wildcard != null && !segment.isEmpty()) {
+            best = walk(node.wildcard, segments, index + 1, method, best);
+        }
+        return best;
+    }
+
+    /**
+     * Routes are kept in declaration order, so the first applicable one is the earliest in this list.
+     */
+    private static <T> Route<T> earliest(List<Route<T>> routes, String method, Route<T> best) {
+        for (int i = 0; i < routes.size(); i++) {
+            Route<T> route = routes.get(i);
+            if (best != null && route.order() >= best.order()) {
+                return best;
+            }
+            if (route.method() == null || route.method().equals(method)) {
+                return route;
+            }
+        }
+        return best;
+    }
+
+    private record Route<T>(int order, String method, T value) {
+    }
+
+    private static final class Node<T> {
+        private final Map<String, Node<T>> literals = new HashMap<>();
+        private Node<T> wildcard;
+        private final List<Route<T>> terminal = new ArrayList<>();
+        private final List<Route<T>> catchAll = new ArrayList<>();
+    }
+
+    /**
+     * Collects rules in declaration order; the declaration order defines first-match priority.
+     */
+    public static final class Builder<T> {
+
+        private final Node<T> root = new Node<>();
+        private int order;
+
+        private Builder() {
+        }
+
+        /**
+         * @param method  the HTTP method, or {@code null} for any method
+         * @param pattern the path pattern, relative to the context path
+         * @param value   the value returned for requests matching this rule
+         * @return this builder
+         * @throws IllegalArgumentException if the pattern uses unsupported syntax
+         */
+        public Builder<T> route(HttpMethod method, String pattern, T value) {
+            Route<T> route = new Route<>(order++, method != null ? method.name() : null, value);
+            String relative = pattern.startsWith("/") ? pattern.substring(1) : pattern;
+            String[] segments = relative.isEmpty() ? new String[0] : relative.split("/", -1);
+            Node<T> node = root;
+            for (int i = 0; i < segments.length; i++) {
+                String segment = segments[i];
+                if (segment.equals("**")) {
+                    if (i != segments.length - 1) {
+                        throw new IllegalArgumentException("'**' is only supported as the last segment: " + pattern);
+                    }
+                    node.catchAll.add(route);
+                    return this;
+                }
+                if (segment.equals("*") || isVariable(segment)) {
+                    if (node.wildcard == null) {
+                        node.wildcard = new Node<>();
+                    }
+                    node = node.wildcard;
+                } else if (segment.indexOf('*') >= 0 || segment.indexOf('{') >= 0) {
+                    throw new IllegalArgumentException("Unsupported path segment '" + segment + "' in " + pattern);
+                } else {
+                    node = node.literals.computeIfAbsent(segment, key -> new Node<>());
+                }
+            }
+            node.terminal.add(route);
+            return this;
+        }
+
+        private static boolean isVariable(String segment) {
+            return segment.length() > 2 && segment.charAt(0) == '{' && segment.charAt(segment.length() - 1) == '}'
+                    && segment.indexOf(':') < 0;
+        }
+
+        public RouteTree<T> build() {
+            return new RouteTree<>(root, order);
+        }
+    }
+}
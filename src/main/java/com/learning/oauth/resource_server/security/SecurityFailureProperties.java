@@ -0,0 +1,25 @@
+package com.learning.oauth.resource_server.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Properties of the exceptions raised for expected security failures, bound from
+ * {@code application.security.failures.*}.
+ *
+ * <pre>
+ * application:
+ *   security:
+ *     failures:
+ *       stackless: false
+ * </pre>
+ *
+ * @see SecurityFailures
+ */
+@Data
+@ConfigurationProperties(prefix = "application.security.failures")
+public class SecurityFailureProperties {
+
+    /** Whether rejected tokens and denied authorizations are raised without filling in a stack trace. */
+    private boolean stackless = false;
+}
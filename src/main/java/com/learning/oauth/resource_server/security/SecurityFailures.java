@@ -0,0 +1,183 @@
+package com.learning.oauth.resource_server.security;
+
+import org.springframework.security.authorization.AuthorizationDeniedException;
+import org.springframework.security.authorization.AuthorizationEventPublisher;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.security.oauth2.server.resource.InvalidBearerTokenException;
+
+import java.io.Serial;
+import java.util.Collection;
+
+/**
+ * Creates the exceptions for expected security failures: rejected tokens (expired, bad signature, malformed)
+ * and denied authorizations (missing role).
+ * <p>
+ * These failures are routine under credential stuffing or a misconfigured client, yet every exception fills in
+ * the whole stack, roughly a hundred frames deep inside the filter chain, and nobody reads it: the handlers
+ * only log the message. With {@code stackless} enabled, the exceptions raised here skip
+ * {@link Throwable#fillInStackTrace()}, which makes creating one a handful of field writes. Each failure
+ * still gets its own instance: a {@code Throwable} is mutable ({@code addSuppressed}, {@code initCause}) and
+ * Spring's exception types offer no constructor that disables suppression, so sharing one across
+ * concurrent requests is not safe. Unexpected exceptions, including everything reaching the generic 500
+ * handler, keep their full stack traces.
+ * </p>
+ *
+ * <h3>Where they are raised:</h3>
+ * <ul>
+ *     <li>{@link RejectedTokenCache}: repeats of a recently rejected token, with the original message
+ *         and, for expired tokens, the {@link JwtValidationException} errors</li>
+ *     <li>{@link JwtBearerAuthenticationProvider}: the {@link InvalidBearerTokenException} wrapping every
+ *         rejection, first or repeated</li>
+ *     <li>{@link #throwingOnDenial}: a denied request or {@code @Secured} authorization throws right away,
+ *         instead of Spring Security creating an {@link AuthorizationDeniedException} for the denial</li>
+ * </ul>
+ *
+ * @see SecurityFailureProperties
+ */
+public class SecurityFailures {
+
+    static final String ACCESS_DENIED = "Access Denied";
+
+    private final boolean stackless;
+
+    public SecurityFailures(SecurityFailureProperties properties) {
+        this.stackless = properties.isStackless();
+    }
+
+    /**
+     * Recreates a token rejection, to be thrown again for the same token.
+     *
+     * @param message the message of the first rejection
+     * @param errors  the validation errors of the first rejection, or {@code null} if it was no
+     *                {@link JwtValidationException}
+     * @return an exception with the same message and validation errors, stackless if enabled
+     */
+    public BadJwtException rejected(String message, Collection<OAuth2Error> errors) {
+        if (errors != null) {
+            return stackless
+                    ? new StacklessJwtValidationException(message, errors)
+                    : new JwtValidationException(message, errors);
+        }
+        return stackless ? new StacklessBadJwtException(message) : new BadJwtException(message);
+    }
+
+    /**
+     * Creates the authentication failure for a rejected token, as Spring's {@code JwtAuthenticationProvider}
+     * would.
+     *
+     * @param cause the rejection raised by the decoder
+     * @return an exception with the message of the rejection, stackless if enabled
+     */
+    public InvalidBearerTokenException invalidToken(BadJwtException cause) {
+        return stackless
+                ? new StacklessInvalidBearerTokenException(cause.getMessage(), cause)
+                : new InvalidBearerTokenException(cause.getMessage(), cause);
+    }
+
+    /**
+     * Wraps an authorization manager so that a denial is thrown as a stackless {@link AuthorizationDeniedException}
+     * instead of being returned; with {@code stackless} disabled the manager is returned unchanged.
+     * <p>
+     * Both the {@code AuthorizationFilter} and the method security interceptors propagate an
+     * {@link AuthorizationDeniedException} thrown by the manager exactly like one they would create themselves.
+     * </p>
+     *
+     * @param delegate the manager deciding the authorization
+     * @param <T>      the secured object type
+     * @return the wrapping manager
+     */
+    public <T> AuthorizationManager<T> throwingOnDenial(AuthorizationManager<T> delegate) {
+        return throwingOnDenial(delegate, null);
+    }
+
+    /**
+     * Like {@link #throwingOnDenial(AuthorizationManager)}, but first publishes the denial. A caller that
+     * publishes authorization events, such as a method security interceptor, does so only for a returned
+     * result, so it never sees the denials thrown here.
+     *
+     * @param delegate       the manager deciding the authorization
+     * @param eventPublisher the publisher the caller uses, or {@code null}
+     * @param <T>            the secured object type
+     * @return the wrapping manager
+     */
+    public <T> AuthorizationManager<T> throwingOnDenial(AuthorizationManager<T> delegate,
+                                                        AuthorizationEventPublisher eventPublisher) {
+        if (!stackless) {
+            return delegate;
+        }
+        return (authentication, object) -> {
+            AuthorizationResult result = delegate.authorize(authentication, object);
+            if (result != null && !result.isGranted()) {
+                if (eventPublisher != null) {
+                    eventPublisher.publishAuthorizationEvent(authentication::get, object, result);
+                }
+                throw new StacklessAuthorizationDeniedException(ACCESS_DENIED, result);
+            }
+            return result;
+        };
+    }
+
+    private static final class StacklessBadJwtException extends BadJwtException {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private StacklessBadJwtException(String message) {
+            super(message, null);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    private static final class StacklessJwtValidationException extends JwtValidationException {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private StacklessJwtValidationException(String message, Collection<OAuth2Error> errors) {
+            super(message, errors);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    private static final class StacklessInvalidBearerTokenException extends InvalidBearerTokenException {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private StacklessInvalidBearerTokenException(String message, Throwable cause) {
+            super(message, cause);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    private static final class StacklessAuthorizationDeniedException extends AuthorizationDeniedException {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private StacklessAuthorizationDeniedException(String message, AuthorizationResult result) {
+            super(message, result);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.learning.oauth.resource_server.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Compact, collision-resistant cache key derived from a raw bearer token.
+ * <p>
+ * The raw token is never stored as a cache key. Instead, the first 128 bits of its SHA-256 digest
+ * are kept as two {@code long}s, which makes the key cheap to hash and compare and keeps the
+ * token itself out of heap dumps.
+ * </p>
+ *
+ * @param high the first 64 bits of the SHA-256 digest
+ * @param low  the next 64 bits of the SHA-256 digest
+ */
+public record TokenHash(long high, long low) {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available in this JVM", e);
+        }
+    });
+
+    /**
+     * Computes the hash of the given raw token.
+     *
+     * @param token the raw (compact serialized) bearer token
+     * @return the token hash
+     */
+    public static TokenHash of(String token) {
+        MessageDigest digest = SHA_256.get();
+        byte[] bytes = digest.digest(token.getBytes(StandardCharsets.US_ASCII));
+        return new TokenHash(toLong(bytes, 0), toLong(bytes, 8));
+    }
+
+    private static long toLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            value = (value << 8) | (bytes[i] & 0xFF);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,91 @@
+package com.learning.oauth.resource_server.benchmark;
+
+import org.slf4j.Marker;
+import org.slf4j.event.Level;
+import org.slf4j.helpers.AbstractLogger;
+
+import java.io.Serial;
+
+/**
+ * Logger with every level enabled that only counts the characters it is given.
+ * <p>
+ * Lets benchmarks measure formatting work without measuring an appender, while keeping
+ * {@code isInfoEnabled()} guards from short-circuiting the code under test.
+ * </p>
+ */
+class DiscardingLogger extends AbstractLogger {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private long characters;
+
+    DiscardingLogger() {
+        this.name = "benchmark";
+    }
+
+    long characters() {
+        return characters;
+    }
+
+    @Override
+    protected String getFullyQualifiedCallerName() {
+        return null;
+    }
+
+    @Override
+    protected void handleNormalizedLoggingCall(Level level, Marker marker, String messagePattern, Object[] arguments,
+                                               Throwable throwable) {
+        characters += messagePattern != null ? messagePattern.length() : 0;
+    }
+
+    @Override
+    public boolean isTraceEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isTraceEnabled(Marker marker) {
+        return true;
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isDebugEnabled(Marker marker) {
+        return true;
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isInfoEnabled(Marker marker) {
+        return true;
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isWarnEnabled(Marker marker) {
+        return true;
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isErrorEnabled(Marker marker) {
+        return true;
+    }
+}
@@ -0,0 +1,114 @@
+package com.learning.oauth.resource_server.benchmark;
+
+import com.learning.oauth.resource_server.config.ErrorKind;
+import com.learning.oauth.resource_server.config.ErrorResponseProperties;
+import com.learning.oauth.resource_server.config.ErrorResponseWriter;
+import com.learning.oauth.resource_server.config.ProblemDetailWriter;
+import com.learning.oauth.resource_server.config.ProblemTypeRegistry;
+import com.learning.oauth.resource_server.model.ErrorResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletResponse;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time and allocation per error response body, in both formats of {@code GlobalExceptionHandler}.
+ * <p>
+ * {@code legacyMapper} serializes an {@link ErrorResponse} with the {@code ObjectMapper}, as Spring MVC does for
+ * a returned {@code ResponseEntity}; {@code legacyTemplate} writes it with the {@link ErrorResponseWriter}, which
+ * only has templates for {@code 401}/{@code 403} and otherwise falls back to the mapper, like the handler does;
+ * {@code problemDetail} writes the RFC 7807 body with the {@link ProblemDetailWriter}. Run with the GC profiler,
+ * {@code gc.alloc.rate.norm} gives the bytes allocated per response.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorResponseFormatBenchmark {
+
+    private static final String PATH = "/oauth/users/status";
+
+    @Param({"FORBIDDEN", "VALIDATION_FAILED"})
+    private ErrorKind kind;
+
+    private ObjectMapper objectMapper;
+    private ErrorResponseWriter errorResponseWriter;
+    private ProblemDetailWriter problemDetailWriter;
+    private MockHttpServletResponse response;
+    private LocalDateTime timestamp;
+    private String isoTimestamp;
+    private String message;
+    private Map<String, String> validationErrors;
+
+    @Setup
+    public void setUp() {
+        objectMapper = JsonMapper.builder().build();
+        errorResponseWriter = new ErrorResponseWriter(objectMapper);
+        ErrorResponseProperties properties = new ErrorResponseProperties();
+        problemDetailWriter = new ProblemDetailWriter(new ProblemTypeRegistry(properties), properties);
+        response = new MockHttpServletResponse();
+        timestamp = LocalDateTime.of(2025, 10, 20, 13, 14, 15, 123_000_000);
+        isoTimestamp = "2025-10-20T13:14:15.123";
+        if (kind == ErrorKind.VALIDATION_FAILED) {
+            message = "Request body validation failed. See details.";
+            validationErrors = new LinkedHashMap<>();
+            validationErrors.put("email", "must be a well-formed email address");
+            validationErrors.put("firstName", "must not be blank");
+        } else {
+            message = "Access is denied.";
+        }
+    }
+
+    @Benchmark
+    public byte[] legacyMapper() {
+        return objectMapper.writeValueAsBytes(new ErrorResponse(timestamp, kind.status().value(), kind.title(),
+                message, PATH, validationErrors));
+    }
+
+    @Benchmark
+    public Object legacyTemplate() throws IOException {
+        response.reset();
+        if (validationErrors == null
+                && errorResponseWriter.write(response, kind.status(), timestamp, message, PATH)) {
+            return response;
+        }
+        return legacyMapper();
+    }
+
+    @Benchmark
+    public Object problemDetail() throws IOException {
+        response.reset();
+        problemDetailWriter.write(response, kind, isoTimestamp, message, PATH, validationErrors);
+        return response;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ErrorResponseFormatBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
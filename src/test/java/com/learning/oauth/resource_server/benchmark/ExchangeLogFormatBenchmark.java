@@ -0,0 +1,102 @@
+package com.learning.oauth.resource_server.benchmark;
+
+import com.learning.oauth.resource_server.logging.ExchangeLogEvent;
+import com.learning.oauth.resource_server.logging.JsonExchangeLogSink;
+import com.learning.oauth.resource_server.logging.TextExchangeLogSink;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exchanges formatted per second by the boxed text formatter (parse + re-serialize of JSON bodies)
+ * and by the structured JSON formatter (streaming generator, bodies embedded raw).
+ * <p>
+ * {@code bodySize} is the approximate size of the JSON request and response bodies in bytes. Both sinks
+ * write to a {@link DiscardingLogger}, so only formatting is measured. The 100 KB case exceeds
+ * {@code MAX_PAYLOAD_LENGTH} in the filter but is built here without truncation to show the per-byte cost.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExchangeLogFormatBenchmark {
+
+    @Param({"1024", "10240", "102400"})
+    private int bodySize;
+
+    private ExchangeLogEvent event;
+    private DiscardingLogger logger;
+    private TextExchangeLogSink text;
+    private JsonExchangeLogSink json;
+
+    @Setup
+    public void setUp() {
+        byte[] body = jsonBody(bodySize);
+        List<ExchangeLogEvent.Header> requestHeaders = List.of(
+                new ExchangeLogEvent.Header("host", "localhost:8080"),
+                new ExchangeLogEvent.Header("content-type", "application/json"),
+                new ExchangeLogEvent.Header("accept", "application/json"),
+                new ExchangeLogEvent.Header("user-agent", "benchmark/1.0"));
+        List<ExchangeLogEvent.Header> responseHeaders = List.of(
+                new ExchangeLogEvent.Header("Content-Type", "application/json"));
+        String timestamp = DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(LocalDateTime.now());
+        event = new ExchangeLogEvent("1a2b3c4d", timestamp, "POST", "/oauth/users", null, "127.0.0.1",
+                requestHeaders, body, body.length, "UTF-8", 12, 200,
+                responseHeaders, body, body.length, "UTF-8");
+        logger = new DiscardingLogger();
+        text = new TextExchangeLogSink(logger);
+        json = new JsonExchangeLogSink(logger);
+    }
+
+    private static byte[] jsonBody(int size) {
+        StringBuilder body = new StringBuilder(size + 64).append("{\"users\":[");
+        for (int i = 0; body.length() < size - 2; i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append("{\"id\":").append(i).append(",\"name\":\"user").append(i)
+                    .append("\",\"email\":\"user").append(i).append("@example.com\",\"active\":true}");
+        }
+        return body.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public long boxedText() {
+        text.accept(event);
+        return logger.characters();
+    }
+
+    @Benchmark
+    public long structuredJson() {
+        json.accept(event);
+        return logger.characters();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ExchangeLogFormatBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
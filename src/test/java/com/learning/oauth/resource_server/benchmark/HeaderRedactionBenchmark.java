@@ -0,0 +1,96 @@
+package com.learning.oauth.resource_server.benchmark;
+
+import com.learning.oauth.resource_server.logging.HeaderPolicy;
+import com.learning.oauth.resource_server.logging.RequestLoggingProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of the header lines of the text log, with and without sanitizing the values through
+ * {@link HeaderPolicy}.
+ * <p>
+ * Both benchmarks build the same {@code String.format("║   %-15s: %s\n", ...)} line per header, so their
+ * difference is the cost of redaction. The header set includes a realistic Keycloak access token in
+ * {@code Authorization} and a cookie, so the policy does its full work: perfect-hash lookups, JWT masking
+ * and redaction.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeaderRedactionBenchmark {
+
+    private String[] names;
+    private String[] values;
+    private HeaderPolicy policy;
+
+    @Setup
+    public void setUp() {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String header = encoder.encodeToString(
+                "{\"alg\":\"RS256\",\"typ\":\"JWT\",\"kid\":\"Kx1nZ2Vd3Q4tR8mX0p9L\"}".getBytes(StandardCharsets.UTF_8));
+        String payload = encoder.encodeToString(("{\"exp\":1767225600,\"iat\":1767225300,"
+                + "\"jti\":\"onrtac:5b6e1c1e-3f7a-4c3d-9a51-0f7b2d9e8c11\","
+                + "\"iss\":\"http://localhost:8081/realms/oauth-learning\",\"aud\":\"account\","
+                + "\"sub\":\"f3a9c2d4-1b2e-4c5d-8e7f-90a1b2c3d4e5\",\"typ\":\"Bearer\",\"azp\":\"resource-server\","
+                + "\"realm_access\":{\"roles\":[\"developer\",\"offline_access\",\"uma_authorization\"]},"
+                + "\"scope\":\"openid profile email\",\"preferred_username\":\"developer\"}")
+                .getBytes(StandardCharsets.UTF_8));
+        String signature = encoder.encodeToString(new byte[256]);
+
+        names = new String[]{"host", "user-agent", "accept", "accept-encoding", "connection", "content-type",
+                "content-length", "authorization", "cookie", "x-request-id"};
+        values = new String[]{"localhost:8080", "Mozilla/5.0 (X11; Linux x86_64) benchmark/1.0", "application/json",
+                "gzip, deflate, br", "keep-alive", "application/json", "128",
+                "Bearer " + header + "." + payload + "." + signature, "JSESSIONID=4A3F2B1C0D9E8F7A6B5C4D3E2F1A0B9C",
+                "7f3a9c2d4b1e6f08"};
+        policy = new HeaderPolicy(new RequestLoggingProperties.Headers());
+    }
+
+    @Benchmark
+    public String formattingWithoutRedaction() {
+        StringBuilder msg = new StringBuilder();
+        for (int i = 0; i < names.length; i++) {
+            msg.append(String.format("║   %-15s: %s\n", names[i], values[i]));
+        }
+        return msg.toString();
+    }
+
+    @Benchmark
+    public String formattingWithRedaction() {
+        StringBuilder msg = new StringBuilder();
+        for (int i = 0; i < names.length; i++) {
+            String value = policy.sanitize(names[i], values[i]);
+            if (value != null) {
+                msg.append(String.format("║   %-15s: %s\n", names[i], value));
+            }
+        }
+        return msg.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HeaderRedactionBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,106 @@
+package com.learning.oauth.resource_server.benchmark;
+
+import com.learning.oauth.resource_server.config.KeycloakRoleConverter;
+import com.learning.oauth.resource_server.security.AuthorityProperties;
+import com.learning.oauth.resource_server.security.AuthorityRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Per-call cost of {@link KeycloakRoleConverter}, compared with the previous stream-based implementation.
+ * <p>
+ * Run the {@link #main(String[])} method; the {@link GCProfiler} column {@code gc.alloc.rate.norm}
+ * reports the bytes allocated per conversion.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeycloakRoleConverterBenchmark {
+
+    @Param({"20", "40"})
+    private int roleCount;
+
+    private Jwt jwt;
+    private KeycloakRoleConverter converter;
+
+    @Setup
+    public void setUp() {
+        List<String> roles = new ArrayList<>(roleCount);
+        for (int i = 0; i < roleCount; i++) {
+            roles.add("role_" + i);
+        }
+        jwt = Jwt.withTokenValue("token")
+                .header("alg", "RS256")
+                .claim("realm_access", Map.of("roles", roles))
+                .build();
+
+        AuthorityProperties properties = new AuthorityProperties();
+        properties.setKnownRoles(roles);
+        converter = new KeycloakRoleConverter(new AuthorityRegistry(properties));
+    }
+
+    @Benchmark
+    public Collection<GrantedAuthority> streamBased() {
+        return legacyConvert(jwt);
+    }
+
+    @Benchmark
+    public Collection<GrantedAuthority> interned() {
+        return converter.convert(jwt);
+    }
+
+    /**
+     * The converter as it was before authorities were interned.
+     */
+    @SuppressWarnings("unchecked")
+    private static Collection<GrantedAuthority> legacyConvert(Jwt jwt) {
+        Map<String, Object> realmAccess = jwt.getClaimAsMap("realm_access");
+        if (realmAccess == null || realmAccess.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Object rolesObject = realmAccess.get("roles");
+        if (!(rolesObject instanceof List)) {
+            return Collections.emptyList();
+        }
+        return ((List<String>) rolesObject).stream()
+                .filter(role -> role != null && !role.trim().isEmpty())
+                .map(roleName -> "ROLE_" + roleName)
+                .map(SimpleGrantedAuthority::new)
+                .collect(Collectors.toList());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(KeycloakRoleConverterBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,143 @@
+package com.learning.oauth.resource_server.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import ch.qos.logback.core.encoder.Encoder;
+import com.learning.oauth.resource_server.logging.ReusableBufferEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one {@code log.info(...)} call on a request thread under the two profiles of {@code logback-spring.xml}.
+ * <p>
+ * {@code development} is the default profile: a synchronous appender with the colored pattern including
+ * {@code %M:%L}, so every call walks the caller's stack and formats and writes on the calling thread.
+ * {@code production} is the {@code prod} profile: an {@link AsyncAppender} (bounded queue, no caller data,
+ * never blocking) in front of the {@link ReusableBufferEncoder}. Both write to a discarding stream, so the
+ * console itself is not measured.
+ * </p>
+ * <p>
+ * Throughput is log calls per second across 4 threads; sample time is the latency each call adds to the
+ * request. Under {@code neverBlock}, calls that find the queue full are dropped, which the production
+ * throughput includes; the {@code gc.alloc.rate.norm} column shows the allocation per call.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class LoggingProfileBenchmark {
+
+    private static final String DEVELOPMENT_PATTERN = "[%boldGreen(%d{yyyy-MM-dd HH:mm:ss.SSS})] %highlight(%-5level) "
+            + "%magenta([%thread]) [%X{requestId}] %cyan(%logger) [%boldYellow(%M:%L)] : %msg%n%throwable";
+
+    private LoggerContext developmentContext;
+    private LoggerContext productionContext;
+    private Logger developmentLogger;
+    private Logger productionLogger;
+
+    @Setup
+    public void setUp() {
+        developmentContext = new LoggerContext();
+        PatternLayoutEncoder patternEncoder = new PatternLayoutEncoder();
+        patternEncoder.setContext(developmentContext);
+        patternEncoder.setPattern(DEVELOPMENT_PATTERN);
+        patternEncoder.start();
+        developmentLogger = logger(developmentContext, discardingAppender(developmentContext, patternEncoder));
+
+        productionContext = new LoggerContext();
+        ReusableBufferEncoder reusableEncoder = new ReusableBufferEncoder();
+        reusableEncoder.setContext(productionContext);
+        reusableEncoder.start();
+        AsyncAppender async = new AsyncAppender();
+        async.setContext(productionContext);
+        async.setQueueSize(8192);
+        async.setDiscardingThreshold(0);
+        async.setNeverBlock(true);
+        async.setIncludeCallerData(false);
+        async.addAppender(discardingAppender(productionContext, reusableEncoder));
+        async.start();
+        productionLogger = logger(productionContext, async);
+    }
+
+    private static OutputStreamAppender<ILoggingEvent> discardingAppender(LoggerContext context,
+                                                                         Encoder<ILoggingEvent> encoder) {
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(context);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+        return appender;
+    }
+
+    private static Logger logger(LoggerContext context, Appender<ILoggingEvent> appender) {
+        Logger logger = context.getLogger("com.learning.oauth.resource_server.controller.UserController");
+        logger.setAdditive(false);
+        logger.addAppender(appender);
+        return logger;
+    }
+
+    @TearDown
+    public void tearDown() {
+        developmentContext.stop();
+        productionContext.stop();
+    }
+
+    /**
+     * Puts a request ID into each context's MDC, as the request logging filter does.
+     */
+    @State(Scope.Thread)
+    public static class RequestThread {
+
+        private int request;
+
+        @Setup
+        public void setUp(LoggingProfileBenchmark benchmark) {
+            String requestId = Long.toHexString(Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L);
+            benchmark.developmentContext.getMDCAdapter().put("requestId", requestId);
+            benchmark.productionContext.getMDCAdapter().put("requestId", requestId);
+        }
+    }
+
+    @Benchmark
+    public void development(RequestThread thread) {
+        developmentLogger.info("Fetched status for user {} in {} ms", "developer", thread.request++);
+    }
+
+    @Benchmark
+    public void production(RequestThread thread) {
+        productionLogger.info("Fetched status for user {} in {} ms", "developer", thread.request++);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LoggingProfileBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
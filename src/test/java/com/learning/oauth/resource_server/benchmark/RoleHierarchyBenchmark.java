@@ -0,0 +1,104 @@
+package com.learning.oauth.resource_server.benchmark;
+
+import com.learning.oauth.resource_server.config.KeycloakRoleConverter;
+import com.learning.oauth.resource_server.security.AuthorityProperties;
+import com.learning.oauth.resource_server.security.AuthorityRegistry;
+import com.learning.oauth.resource_server.security.RoleHierarchyClosure;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.access.hierarchicalroles.RoleHierarchy;
+import org.springframework.security.access.hierarchicalroles.RoleHierarchyImpl;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Role check against a composite-role hierarchy: Spring's {@link RoleHierarchy} evaluated at check time
+ * versus the {@link RoleHierarchyClosure} applied once during token conversion.
+ * <p>
+ * Both benchmarks measure what one request pays: converting the token and checking for a role that is
+ * only reachable through the hierarchy ({@code admin > manager > developer > viewer}).
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoleHierarchyBenchmark {
+
+    private static final String REQUIRED = "ROLE_viewer";
+
+    private Jwt jwt;
+    private KeycloakRoleConverter plainConverter;
+    private KeycloakRoleConverter closureConverter;
+    private RoleHierarchy roleHierarchy;
+
+    @Setup
+    public void setUp() {
+        jwt = Jwt.withTokenValue("token")
+                .header("alg", "RS256")
+                .claim("realm_access", Map.of("roles", List.of("admin", "offline_access", "uma_authorization")))
+                .claim("resource_access", Map.of("resource-server", Map.of("roles", List.of("auditor"))))
+                .build();
+
+        Map<String, List<String>> hierarchy = new LinkedHashMap<>();
+        hierarchy.put("admin", List.of("manager"));
+        hierarchy.put("manager", List.of("developer"));
+        hierarchy.put("developer", List.of("viewer"));
+
+        AuthorityRegistry registry = new AuthorityRegistry(new AuthorityProperties());
+        List<String> clientIds = List.of("resource-server");
+        plainConverter = new KeycloakRoleConverter(registry, null, null, null, clientIds);
+        closureConverter = new KeycloakRoleConverter(registry, null, null, new RoleHierarchyClosure(hierarchy), clientIds);
+        roleHierarchy = RoleHierarchyImpl.fromHierarchy("""
+                ROLE_admin > ROLE_manager
+                ROLE_manager > ROLE_developer
+                ROLE_developer > ROLE_viewer
+                """);
+    }
+
+    @Benchmark
+    public boolean springRoleHierarchyAtCheckTime() {
+        return hasAuthority(roleHierarchy.getReachableGrantedAuthorities(plainConverter.convert(jwt)));
+    }
+
+    @Benchmark
+    public boolean precomputedClosure() {
+        return hasAuthority(closureConverter.convert(jwt));
+    }
+
+    private static boolean hasAuthority(Collection<? extends GrantedAuthority> authorities) {
+        for (GrantedAuthority authority : authorities) {
+            if (REQUIRED.equals(authority.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RoleHierarchyBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,103 @@
+package com.learning.oauth.resource_server.benchmark;
+
+import com.learning.oauth.resource_server.security.RouteTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finding the authorization rule for a request among 500 synthetic {@code (method, pattern)} rules:
+ * the linear {@link RequestMatcher} scan done by {@code authorizeHttpRequests} versus a {@link RouteTree} lookup.
+ * <p>
+ * The rules mix literal, {@code {variable}} and trailing {@code **} patterns over a shared {@code /api/v1}
+ * prefix. {@code target} selects a request hitting the first rule, the last rule, or no rule at all
+ * (the {@code anyRequest()} case, which is the worst case for the linear scan).
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteTreeBenchmark {
+
+    private static final int RULES = 500;
+
+    @Param({"first", "last", "none"})
+    private String target;
+
+    private List<RequestMatcher> matchers;
+    private List<Integer> values;
+    private RouteTree<Integer> routes;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        PathPatternRequestMatcher.Builder builder = PathPatternRequestMatcher.withDefaults();
+        RouteTree.Builder<Integer> tree = RouteTree.builder();
+        matchers = new ArrayList<>(RULES);
+        values = new ArrayList<>(RULES);
+        for (int i = 0; i < RULES; i++) {
+            HttpMethod method = i % 3 == 0 ? null : (i % 3 == 1 ? HttpMethod.GET : HttpMethod.POST);
+            String pattern = switch (i % 4) {
+                case 0 -> "/api/v1/resource" + i + "/items";
+                case 1 -> "/api/v1/resource" + i + "/items/{id}";
+                case 2 -> "/api/v1/resource" + i + "/**";
+                default -> "/api/v1/resource" + i + "/items/{id}/status";
+            };
+            matchers.add(builder.matcher(method, pattern));
+            values.add(i);
+            tree.route(method, pattern, i);
+        }
+        routes = tree.build();
+
+        request = switch (target) {
+            case "first" -> new MockHttpServletRequest("GET", "/api/v1/resource0/items");
+            case "last" -> new MockHttpServletRequest("GET", "/api/v1/resource499/items/42/status");
+            default -> new MockHttpServletRequest("GET", "/users/status");
+        };
+    }
+
+    @Benchmark
+    public Integer linearRequestMatchers() {
+        for (int i = 0; i < matchers.size(); i++) {
+            if (matchers.get(i).matches(request)) {
+                return values.get(i);
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public Integer routeTree() {
+        return routes.find(request);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RouteTreeBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,67 @@
+package com.learning.oauth.resource_server.config;
+
+import com.learning.oauth.resource_server.model.ErrorResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletResponse;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ErrorResponseWriterTests {
+
+    private static final List<LocalDateTime> TIMESTAMPS = List.of(
+            LocalDateTime.of(2025, 1, 2, 3, 4, 5),
+            LocalDateTime.of(2025, 10, 20, 13, 14, 15, 100_000_000),
+            LocalDateTime.of(2025, 10, 20, 13, 14, 15, 123_000_000),
+            LocalDateTime.of(2025, 12, 31, 23, 59, 59, 123_456_789),
+            LocalDateTime.of(999, 6, 7, 8, 9, 10, 1_000));
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+    private final ErrorResponseWriter writer = new ErrorResponseWriter(objectMapper);
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "Access is denied.",
+            "Full authentication is required to access this resource",
+            "An error occurred while attempting to decode the Jwt: Jwt expired at 2025-10-20T13:14:15Z",
+            "quote \" backslash \\ slash / tab \t newline \n return \r control \u0001\u001f",
+            "latin é, euro €, emoji 😀, lone surrogate \ud83d",
+            "",
+    })
+    void writesTheSameBytesAsTheObjectMapper(String message) throws IOException {
+        for (HttpStatus status : List.of(HttpStatus.UNAUTHORIZED, HttpStatus.FORBIDDEN)) {
+            for (LocalDateTime timestamp : TIMESTAMPS) {
+                String path = "/oauth/users/%73tatus;a=b/é";
+                MockHttpServletResponse response = new MockHttpServletResponse();
+
+                assertThat(writer.write(response, status, timestamp, message, path)).isTrue();
+
+                byte[] expected = objectMapper.writeValueAsBytes(new ErrorResponse(timestamp, status.value(),
+                        status.getReasonPhrase(), message, path));
+                assertThat(response.getContentAsByteArray()).as("%s %s %s", status, timestamp, message)
+                        .isEqualTo(expected);
+                assertThat(response.getStatus()).isEqualTo(status.value());
+                assertThat(response.getContentLength()).isEqualTo(expected.length);
+            }
+        }
+    }
+
+    @Test
+    void leavesOtherStatusesAndNullValuesToTheCaller() throws IOException {
+        LocalDateTime timestamp = TIMESTAMPS.get(0);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(writer.write(response, HttpStatus.BAD_REQUEST, timestamp, "Bad", "/oauth/users")).isFalse();
+        assertThat(writer.write(response, HttpStatus.FORBIDDEN, timestamp, null, "/oauth/users")).isFalse();
+        assertThat(writer.write(response, HttpStatus.FORBIDDEN, timestamp, "Denied", null)).isFalse();
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+}
@@ -0,0 +1,97 @@
+package com.learning.oauth.resource_server.config;
+
+import com.learning.oauth.resource_server.logging.CachedClock;
+import com.learning.oauth.resource_server.logging.ClockProperties;
+import com.learning.oauth.resource_server.model.ErrorResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.InsufficientAuthenticationException;
+import org.springframework.security.oauth2.server.resource.InvalidBearerTokenException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SecurityErrorResponseHandlerTests {
+
+    private static final Instant NOW = Instant.parse("2025-10-20T13:14:15.123Z");
+    private static final String PATH = "/oauth/users/status";
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+    private final ErrorResponseProperties properties = new ErrorResponseProperties();
+    private final SecurityErrorResponseHandler handler = new SecurityErrorResponseHandler(
+            new ErrorResponseWriter(objectMapper),
+            new ProblemDetailWriter(new ProblemTypeRegistry(properties), properties),
+            objectMapper,
+            new CachedClock(new ClockProperties(), Clock.fixed(NOW, ZoneOffset.UTC)));
+
+    @Test
+    void writesTheErrorResponseForARejectedToken() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        handler.commence(request(), response, new InvalidBearerTokenException("Jwt expired at 2025-10-20T13:00:00Z"));
+
+        assertThat(response.getStatus()).isEqualTo(401);
+        assertThat(response.getHeader(HttpHeaders.WWW_AUTHENTICATE)).startsWith("Bearer error=\"invalid_token\"");
+        assertThat(response.getContentAsByteArray()).isEqualTo(objectMapper.writeValueAsBytes(
+                new ErrorResponse(localNow(), 401, "Unauthorized", "Jwt expired at 2025-10-20T13:00:00Z", PATH)));
+    }
+
+    @Test
+    void writesTheErrorResponseForAMissingToken() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        handler.commence(request(), response, new InsufficientAuthenticationException("Full authentication required"));
+
+        assertThat(response.getStatus()).isEqualTo(401);
+        assertThat(response.getHeader(HttpHeaders.WWW_AUTHENTICATE)).startsWith("Bearer");
+        assertThat(response.getContentAsByteArray()).isEqualTo(objectMapper.writeValueAsBytes(
+                new ErrorResponse(localNow(), 401, "Unauthorized", "Full authentication required", PATH)));
+    }
+
+    @Test
+    void writesTheErrorResponseForADeniedRequest() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        handler.handle(request(), response, new AccessDeniedException("Access Denied"));
+
+        assertThat(response.getStatus()).isEqualTo(403);
+        assertThat(response.getHeaders(HttpHeaders.VARY)).contains(HttpHeaders.ACCEPT);
+        assertThat(response.getContentAsByteArray()).isEqualTo(objectMapper.writeValueAsBytes(
+                new ErrorResponse(localNow(), 403, "Forbidden", "Access is denied.", PATH)));
+    }
+
+    @Test
+    void writesAProblemDetailWhenPreferred() throws Exception {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.ACCEPT, "application/problem+json");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        handler.handle(request, response, new AccessDeniedException("Access Denied"));
+
+        assertThat(response.getStatus()).isEqualTo(403);
+        assertThat(response.getContentType()).isEqualTo("application/problem+json");
+        JsonNode body = objectMapper.readTree(response.getContentAsByteArray());
+        assertThat(body.get("status").asInt()).isEqualTo(403);
+        assertThat(body.get("instance").asString()).isEqualTo(PATH);
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", PATH);
+        request.setContextPath("/oauth");
+        return request;
+    }
+
+    private static LocalDateTime localNow() {
+        return LocalDateTime.ofInstant(NOW, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,167 @@
+package com.learning.oauth.resource_server.logging;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AsyncExchangeLogSinkTests {
+
+    private static final int PRODUCERS = 4;
+    private static final int EVENTS_PER_PRODUCER = 20_000;
+    private static final int TOTAL = PRODUCERS * EVENTS_PER_PRODUCER;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Queue<String> written = new ConcurrentLinkedQueue<>();
+
+    @Test
+    void dropPolicyNeitherLosesNorDuplicatesEvents() throws InterruptedException {
+        AsyncExchangeLogSink sink = sink(RequestLoggingProperties.OverflowPolicy.DROP, slowDelegate());
+
+        sink.start();
+        publishConcurrently(sink);
+        sink.stop();
+
+        assertWrittenOnce();
+        assertThat(dropped("overflow")).isPositive();
+        assertThat(written.size() + dropped("overflow")).isEqualTo(TOTAL);
+        assertThat(dropped("sampled")).isZero();
+    }
+
+    @Test
+    void blockPolicyWritesEveryEvent() throws InterruptedException {
+        AsyncExchangeLogSink sink = sink(RequestLoggingProperties.OverflowPolicy.BLOCK, slowDelegate());
+
+        sink.start();
+        publishConcurrently(sink);
+        sink.stop();
+
+        assertWrittenOnce();
+        assertThat(written).hasSize(TOTAL);
+        assertThat(dropped("overflow")).isZero();
+    }
+
+    @Test
+    void samplePolicyAccountsForEveryEvent() throws InterruptedException {
+        AsyncExchangeLogSink sink = sink(RequestLoggingProperties.OverflowPolicy.SAMPLE, slowDelegate());
+
+        sink.start();
+        publishConcurrently(sink);
+        sink.stop();
+
+        assertWrittenOnce();
+        assertThat(dropped("sampled")).isPositive();
+        assertThat(written.size() + dropped("sampled") + dropped("overflow")).isEqualTo(TOTAL);
+    }
+
+    @Test
+    void stopWritesEverythingPublishedBefore() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        AsyncExchangeLogSink sink = sink(RequestLoggingProperties.OverflowPolicy.DROP, event -> {
+            awaitQuietly(release);
+            written.add(event.logId());
+        });
+
+        List<String> published = new ArrayList<>();
+        sink.start();
+        for (int i = 0; i < 100; i++) {
+            published.add("event-" + i);
+            sink.accept(event("event-" + i));
+        }
+        Thread releaser = new Thread(() -> {
+            sleepQuietly(100);
+            release.countDown();
+        });
+        releaser.start();
+        sink.stop();
+        releaser.join();
+        sink.accept(event("after-stop"));
+
+        assertThat(sink.isRunning()).isFalse();
+        published.add("after-stop");
+        assertThat(written).containsExactlyElementsOf(published);
+        assertThat(dropped("overflow")).isZero();
+    }
+
+    private AsyncExchangeLogSink sink(RequestLoggingProperties.OverflowPolicy policy, ExchangeLogSink delegate) {
+        RequestLoggingProperties.Async properties = new RequestLoggingProperties.Async();
+        properties.setCapacity(256);
+        properties.setOverflowPolicy(policy);
+        properties.setBlockTimeout(Duration.ofSeconds(10));
+        return new AsyncExchangeLogSink(delegate, properties, meterRegistry);
+    }
+
+    /**
+     * A consumer slower than the producers, so the buffer runs full.
+     */
+    private ExchangeLogSink slowDelegate() {
+        return event -> {
+            long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(2);
+            while (System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            written.add(event.logId());
+        };
+    }
+
+    private static void publishConcurrently(AsyncExchangeLogSink sink) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            String prefix = "producer-" + p + "-";
+            Thread producer = new Thread(() -> {
+                awaitQuietly(start);
+                for (int i = 0; i < EVENTS_PER_PRODUCER; i++) {
+                    sink.accept(event(prefix + i));
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        start.countDown();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+    }
+
+    private void assertWrittenOnce() {
+        Set<String> distinct = new HashSet<>(written);
+        assertThat(distinct).hasSize(written.size());
+        assertThat(distinct).allMatch(id -> id.startsWith("producer-"));
+    }
+
+    private long dropped(String reason) {
+        return (long) meterRegistry.get(AsyncExchangeLogSink.DROPPED_METRIC).tag("reason", reason).counter().count();
+    }
+
+    private static ExchangeLogEvent event(String logId) {
+        return new ExchangeLogEvent(logId, "2025-10-20T13:14:15.123Z", "GET", "/oauth/users/status", null,
+                "127.0.0.1", List.of(), null, 0, null, 1, 200, List.of(), null, 0, null);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
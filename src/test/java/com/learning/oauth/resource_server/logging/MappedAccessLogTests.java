@@ -0,0 +1,115 @@
+package com.learning.oauth.resource_server.logging;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MappedAccessLogTests {
+
+    private static final long TIMESTAMP = Instant.parse("2025-10-20T13:14:15.123Z").toEpochMilli();
+    private static final int RECORDS_PER_SEGMENT = 3;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void decodesRecordsWrittenAcrossSegmentRolls() throws IOException {
+        MappedAccessLog accessLog = start();
+        for (int i = 0; i < 7; i++) {
+            accessLog.record(TIMESTAMP + i, i % 2 == 0 ? "GET /users/status" : "POST /users", 200 + i, 1000L * i,
+                    i == 0 ? 0 : 0x5f1c9a0e3b7d2c41L + i, i == 1 ? -1 : 10L * i, 17L * i);
+        }
+        accessLog.record(TIMESTAMP + 7, null, 404, 12, 0, 0, 0);
+        accessLog.stop();
+
+        List<Path> segments = segments();
+        List<JsonNode> records = decode(segments);
+
+        // 8 records in segments of 3: two full segments, a partly filled one and the unused spare
+        assertThat(segments).hasSize(4);
+        assertThat(records).hasSize(8);
+        for (int i = 0; i < 7; i++) {
+            JsonNode record = records.get(i);
+            assertThat(record.get("timestamp").asString()).isEqualTo(Instant.ofEpochMilli(TIMESTAMP + i).toString());
+            assertThat(record.get("route").asString()).isEqualTo(i % 2 == 0 ? "GET /users/status" : "POST /users");
+            assertThat(record.get("status").asInt()).isEqualTo(200 + i);
+            assertThat(record.get("latencyMicros").asLong()).isEqualTo(1000L * i);
+            assertThat(record.get("responseBytes").asLong()).isEqualTo(17L * i);
+        }
+        assertThat(records.get(0).has("subject")).isFalse();
+        assertThat(records.get(2).get("subject").asString()).isEqualTo(String.format("%016x", 0x5f1c9a0e3b7d2c41L + 2));
+        assertThat(records.get(1).has("requestBytes")).isFalse();
+        assertThat(records.get(2).get("requestBytes").asLong()).isEqualTo(20);
+        assertThat(records.get(7).get("route").asString()).isEqualTo(PhaseTimers.UNKNOWN_ROUTE);
+        assertThat(records.get(7).get("status").asInt()).isEqualTo(404);
+    }
+
+    @Test
+    void keepsRouteIdsAcrossRestarts() throws IOException {
+        MappedAccessLog first = start();
+        first.record(TIMESTAMP, "GET /users/status", 200, 1, 0, 0, 0);
+        first.stop();
+        MappedAccessLog second = start();
+        second.record(TIMESTAMP + 1, "POST /users", 201, 1, 0, 0, 0);
+        second.record(TIMESTAMP + 2, "GET /users/status", 200, 1, 0, 0, 0);
+        second.stop();
+
+        List<JsonNode> records = decode(segments());
+
+        assertThat(records).extracting(record -> record.get("route").asString())
+                .containsExactly("GET /users/status", "POST /users", "GET /users/status");
+        assertThat(Files.readAllLines(directory.resolve(AccessLogFormat.ROUTES_FILE)))
+                .containsExactly("1\tGET /users/status", "2\tPOST /users");
+    }
+
+    private MappedAccessLog start() {
+        RequestLoggingProperties.AccessLog properties = new RequestLoggingProperties.AccessLog();
+        properties.setEnabled(true);
+        properties.setDirectory(directory.toString());
+        properties.setSegmentSize(DataSize.ofBytes(
+                AccessLogFormat.HEADER_SIZE + RECORDS_PER_SEGMENT * AccessLogFormat.RECORD_SIZE));
+        MappedAccessLog accessLog = new MappedAccessLog(properties, new SimpleMeterRegistry());
+        accessLog.start();
+        return accessLog;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> AccessLogFormat.sequenceOf(file) >= 0)
+                    .sorted((a, b) -> Long.compare(AccessLogFormat.sequenceOf(a), AccessLogFormat.sequenceOf(b)))
+                    .toList();
+        }
+    }
+
+    private List<JsonNode> decode(List<Path> segments) throws IOException {
+        AccessLogDecoder decoder = new AccessLogDecoder();
+        StringWriter out = new StringWriter();
+        for (Path segment : segments) {
+            decoder.decode(segment, out);
+        }
+        List<JsonNode> records = new ArrayList<>();
+        for (String line : out.toString().split("\n")) {
+            if (!line.isEmpty()) {
+                records.add(objectMapper.readTree(line));
+            }
+        }
+        return records;
+    }
+}
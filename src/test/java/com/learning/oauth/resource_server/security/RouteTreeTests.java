@@ -0,0 +1,105 @@
+package com.learning.oauth.resource_server.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RouteTreeTests {
+
+    private static final String CONTEXT_PATH = "/oauth";
+
+    @Test
+    void matchesPercentEncodedSegmentsOnTheDecodedPath() {
+        RouteTree<String> routes = RouteTree.<String>builder()
+                .route(HttpMethod.GET, "/users/status", "developer")
+                .route(null, "/actuator/**", "permitAll")
+                .build();
+
+        assertThat(routes.find(request("GET", "/users/%73tatus"))).isEqualTo("developer");
+        assertThat(routes.find(request("GET", "/%75sers/status"))).isEqualTo("developer");
+        assertThat(routes.find(request("GET", "/users/status;jsessionid=1"))).isEqualTo("developer");
+        assertThat(routes.find(request("GET", "/actuator/%6coggers"))).isEqualTo("permitAll");
+    }
+
+    @Test
+    void returnsTheFirstDeclaredMatchingRule() {
+        RouteTree<String> catchAllFirst = RouteTree.<String>builder()
+                .route(null, "/users/**", "catchAll")
+                .route(HttpMethod.GET, "/users/status", "literal")
+                .build();
+        RouteTree<String> literalFirst = RouteTree.<String>builder()
+                .route(HttpMethod.GET, "/users/status", "literal")
+                .route(null, "/users/**", "catchAll")
+                .build();
+
+        assertThat(catchAllFirst.find(request("GET", "/users/status"))).isEqualTo("catchAll");
+        assertThat(literalFirst.find(request("GET", "/users/status"))).isEqualTo("literal");
+        assertThat(literalFirst.find(request("POST", "/users/status"))).isEqualTo("catchAll");
+    }
+
+    @Test
+    void prefersAnEarlierWildcardRuleOverALaterLiteralRule() {
+        RouteTree<String> routes = RouteTree.<String>builder()
+                .route(HttpMethod.POST, "/users/{id}", "postById")
+                .route(null, "/users/{id}", "byId")
+                .route(null, "/users/status", "status")
+                .build();
+
+        assertThat(routes.find(request("POST", "/users/status"))).isEqualTo("postById");
+        assertThat(routes.find(request("GET", "/users/status"))).isEqualTo("byId");
+        assertThat(routes.find(request("GET", "/users"))).isNull();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/users/status", "/users/%73tatus", "/users/status/", "/users/status;a=b", "/users/42",
+            "/users/42/roles", "/users/", "/users", "/actuator", "/actuator/", "/actuator/%6coggers/com.example",
+            "/admin/performance/report", "/admin/%70erformance", "/other", "/",
+    })
+    void agreesWithPathPatternRequestMatchers(String path) {
+        List<Rule> rules = List.of(
+                new Rule(HttpMethod.GET, "/users/status"),
+                new Rule(HttpMethod.POST, "/actuator/loggers/**"),
+                new Rule(null, "/actuator/**"),
+                new Rule(HttpMethod.GET, "/users/{id}"),
+                new Rule(null, "/users/*/roles"),
+                new Rule(null, "/admin/performance/**"));
+        RouteTree.Builder<Integer> tree = RouteTree.builder();
+        List<RequestMatcher> matchers = new ArrayList<>();
+        PathPatternRequestMatcher.Builder builder = PathPatternRequestMatcher.withDefaults();
+        for (int i = 0; i < rules.size(); i++) {
+            tree.route(rules.get(i).method(), rules.get(i).pattern(), i);
+            matchers.add(builder.matcher(rules.get(i).method(), rules.get(i).pattern()));
+        }
+        RouteTree<Integer> routes = tree.build();
+
+        for (String method : List.of("GET", "POST")) {
+            MockHttpServletRequest request = request(method, path);
+            Integer expected = null;
+            for (int i = 0; i < matchers.size() && expected == null; i++) {
+                if (matchers.get(i).matches(request)) {
+                    expected = i;
+                }
+            }
+            assertThat(routes.find(request)).as("%s %s", method, path).isEqualTo(expected);
+        }
+    }
+
+    private static MockHttpServletRequest request(String method, String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, CONTEXT_PATH + path);
+        request.setContextPath(CONTEXT_PATH);
+        return request;
+    }
+
+    private record Rule(HttpMethod method, String pattern) {
+    }
+}